@@ -0,0 +1,58 @@
+/*************************************************************************
+ *  Compilation:  javac --add-modules jdk.incubator.vector -cp bin -d bin VectorScanKernels.java
+ *
+ *  IntScanKernels on the incubating Vector API. Each step compares a
+ *  whole register of keys against the bound(s) and adds one to the
+ *  matching lanes of a counter vector. The lanes are summed once at the
+ *  end, and the tail that does not fill a register runs the scalar loop.
+ *
+ *  Kept outside src/ so the rest of the tree builds without
+ *  --add-modules. IntScanKernels loads it by name when the module is
+ *  present.
+ *
+ *************************************************************************/
+import jdk.incubator.vector.*;
+
+class VectorScanKernels extends IntScanKernels
+{
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	public int countLess(int[] a, int from, int to, int key)
+	{
+		IntVector ones = IntVector.broadcast(SPECIES, 1);
+		IntVector acc = IntVector.zero(SPECIES);
+		int i = from;
+		int upper = from + SPECIES.loopBound(to - from);
+		for (; i < upper; i += SPECIES.length())
+		{
+			IntVector v = IntVector.fromArray(SPECIES, a, i);
+			acc = acc.add(ones, v.compare(VectorOperators.LT, key));
+		}
+		int count = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++)
+			count += a[i] < key ? 1 : 0;
+		return count;
+	}
+
+	public int countBetween(int[] a, int from, int to, int low, int high)
+	{
+		IntVector ones = IntVector.broadcast(SPECIES, 1);
+		IntVector acc = IntVector.zero(SPECIES);
+		int i = from;
+		int upper = from + SPECIES.loopBound(to - from);
+		for (; i < upper; i += SPECIES.length())
+		{
+			IntVector v = IntVector.fromArray(SPECIES, a, i);
+			acc = acc.add(ones, v.compare(VectorOperators.GE, low).and(v.compare(VectorOperators.LE, high)));
+		}
+		int count = acc.reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++)
+			count += (a[i] >= low & a[i] <= high) ? 1 : 0;
+		return count;
+	}
+
+	public String name()
+	{
+		return "vector (" + SPECIES.length() + " x int)";
+	}
+}
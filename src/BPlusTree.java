@@ -0,0 +1,910 @@
+/*************************************************************************
+ *  Compilation:  javac BPlusTree.java
+ *
+ *  In-memory B+tree with the API of RedBlackBST.
+ *
+ *  Leaves hold up to ORDER keys and values in sorted arrays and are
+ *  linked both ways, so range scans and cursors walk arrays from leaf to
+ *  leaf. Inner nodes hold up to ORDER children, the lower bound of each
+ *  child as its routing key, and the number of keys under each child for
+ *  rank and select. With ORDER 64, 10^7 keys sit 4 levels deep instead
+ *  of about 24, and each level is a binary search inside one array
+ *  rather than a pointer chase per comparison.
+ *
+ *  Nodes other than the root never drop below ORDER / 2 entries. A
+ *  deletion borrows from a sibling or merges with it. Routing keys stay
+ *  valid lower bounds when the smallest key of a child goes away, so
+ *  deletion never has to rewrite them up the tree.
+ *
+ *  As in RedBlackBST, a tree built with a Monoid keeps the combined
+ *  values of every child of an inner node for rangeAggregate.
+ *
+ *************************************************************************/
+import java.util.*;
+
+public class BPlusTree<Key extends Comparable<Key>, Value> {
+
+	private static final int ORDER = 64;        // most keys in a leaf, most children of an inner node
+	private static final int MIN = ORDER / 2;   // fewest in any node but the root
+
+	private Node root;           // null when the tree is empty
+	private int N;               // number of key-value pairs
+	private int height;          // inner levels above the leaves
+	private final Monoid<Value> monoid;   // combines the values of a subtree; null for none
+	private int modCount;        // structural changes, so cursors can fail fast
+	private boolean added;       // did the last insert add a key?
+
+	// A leaf holds n keys with their values. An inner node holds n
+	// children; keys[j] is the lower bound of child j (keys[0] that of the
+	// node itself) and counts[j] the number of keys under child j.
+	private class Node {
+		private int n;
+		private final Key[] keys = (Key[]) new Comparable[ORDER];
+		private final Value[] vals;    // leaves only
+		private final Node[] kids;     // inner nodes only
+		private final int[] counts;    // inner nodes only
+		private final Value[] aggs;    // inner nodes with a monoid: each child's values combined
+		private Node prev, next;       // neighbouring leaves
+
+		Node(boolean leaf) {
+			vals   = leaf ? (Value[]) new Object[ORDER] : null;
+			kids   = leaf ? null : (Node[]) new BPlusTree.Node[ORDER];
+			counts = leaf ? null : new int[ORDER];
+			aggs   = leaf || monoid == null ? null : (Value[]) new Object[ORDER];
+		}
+
+		boolean leaf() { return kids == null; }
+	}
+
+	// create an empty tree
+	public BPlusTree() {
+		this(null);
+	}
+
+	// create an empty tree that keeps the values of each subtree combined
+	// with the monoid, for rangeAggregate
+	public BPlusTree(Monoid<Value> monoid) {
+		this.monoid = monoid;
+	}
+
+	/*************************************************************************
+	 *  Node helper methods
+	 *************************************************************************/
+
+	// position of key in leaf x, or -(insertion point) - 1 if it is not there
+	private int find(Node x, Key key) {
+		int lo = 0, hi = x.n - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int cmp = key.compareTo(x.keys[mid]);
+			if      (cmp < 0) hi = mid - 1;
+			else if (cmp > 0) lo = mid + 1;
+			else              return mid;
+		}
+		return -(lo + 1);
+	}
+
+	// the child of inner node x whose range holds key: the last one whose
+	// lower bound is <= key, or the first
+	private int child(Node x, Key key) {
+		int lo = 1, hi = x.n - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key.compareTo(x.keys[mid]) < 0) hi = mid - 1;
+			else                                lo = mid + 1;
+		}
+		return hi;
+	}
+
+	// number of keys under x
+	private int size(Node x) {
+		if (x.leaf()) return x.n;
+		int size = 0;
+		for (int j = 0; j < x.n; j++) size += x.counts[j];
+		return size;
+	}
+
+	// the values under x combined in key order
+	private Value aggregate(Node x) {
+		Value[] a = x.leaf() ? x.vals : x.aggs;
+		Value agg = a[0];
+		for (int j = 1; j < x.n; j++) agg = monoid.combine(agg, a[j]);
+		return agg;
+	}
+
+	// recompute the aggregate of child j of x, if there is a monoid
+	private void pull(Node x, int j) {
+		if (monoid != null) x.aggs[j] = aggregate(x.kids[j]);
+	}
+
+	/*************************************************************************
+	 *  Size methods
+	 *************************************************************************/
+
+	// return number of key-value pairs in this symbol table
+	public int size() { return N; }
+
+	// is this symbol table empty?
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/*************************************************************************
+	 *  Search
+	 *************************************************************************/
+
+	// the leaf whose range holds key; the tree is not empty
+	private Node leaf(Key key) {
+		Node x = root;
+		while (!x.leaf()) x = x.kids[child(x, key)];
+		return x;
+	}
+
+	// value associated with the given key; null if no such key
+	public Value search(Key key) {
+		if (root == null) return null;
+		Node x = leaf(key);
+		int i = find(x, key);
+		return i >= 0 ? x.vals[i] : null;
+	}
+
+	// is there a key-value pair with the given key?
+	public boolean contains(Key key) {
+		return (search(key) != null);
+	}
+
+	/*************************************************************************
+	 *  Insertion
+	 *************************************************************************/
+
+	// insert the key-value pair; overwrite the old value with the new value
+	// if the key is already present
+	public void insert(Key key, Value val) {
+		if (root == null) root = new Node(true);
+		added = false;
+		Node r = insert(root, key, val);
+		if (r != null) {
+			// the root split: grow a level
+			Node top = new Node(false);
+			top.keys[0] = root.keys[0];
+			top.kids[0] = root;
+			top.counts[0] = size(root);
+			top.n = 1;
+			insertChild(top, 1, r);
+			pull(top, 0);
+			root = top;
+			height++;
+		}
+		if (added) {
+			N++;
+			modCount++;
+		}
+	}
+
+	// insert into the subtree rooted at x; the new right sibling if x
+	// split, null if it did not
+	private Node insert(Node x, Key key, Value val) {
+		if (x.leaf()) {
+			int i = find(x, key);
+			if (i >= 0) {
+				x.vals[i] = val;
+				return null;
+			}
+			added = true;
+			i = -i - 1;
+			if (x.n < ORDER) {
+				insertEntry(x, i, key, val);
+				return null;
+			}
+			Node r = split(x);
+			if (i <= x.n) insertEntry(x, i, key, val);
+			else          insertEntry(r, i - x.n, key, val);
+			return r;
+		}
+
+		int j = child(x, key);
+		Node r = insert(x.kids[j], key, val);
+		if (added) x.counts[j]++;
+		pull(x, j);
+		if (r == null) return null;
+
+		x.counts[j] -= size(r);
+		if (x.n < ORDER) {
+			insertChild(x, j + 1, r);
+			return null;
+		}
+		Node s = split(x);
+		if (j + 1 <= x.n) insertChild(x, j + 1, r);
+		else              insertChild(s, j + 1 - x.n, r);
+		return s;
+	}
+
+	// put the key-value pair at position i of leaf x, which has room
+	private void insertEntry(Node x, int i, Key key, Value val) {
+		System.arraycopy(x.keys, i, x.keys, i + 1, x.n - i);
+		System.arraycopy(x.vals, i, x.vals, i + 1, x.n - i);
+		x.keys[i] = key;
+		x.vals[i] = val;
+		x.n++;
+	}
+
+	// make r child j of inner node x, which has room
+	private void insertChild(Node x, int j, Node r) {
+		System.arraycopy(x.keys,   j, x.keys,   j + 1, x.n - j);
+		System.arraycopy(x.kids,   j, x.kids,   j + 1, x.n - j);
+		System.arraycopy(x.counts, j, x.counts, j + 1, x.n - j);
+		if (monoid != null) System.arraycopy(x.aggs, j, x.aggs, j + 1, x.n - j);
+		x.keys[j] = r.keys[0];
+		x.kids[j] = r;
+		x.counts[j] = size(r);
+		x.n++;
+		pull(x, j);
+	}
+
+	// move the upper half of the full node x into a new right sibling
+	private Node split(Node x) {
+		Node r = new Node(x.leaf());
+		int m = ORDER - MIN;
+		System.arraycopy(x.keys, MIN, r.keys, 0, m);
+		Arrays.fill(x.keys, MIN, ORDER, null);
+		if (x.leaf()) {
+			System.arraycopy(x.vals, MIN, r.vals, 0, m);
+			Arrays.fill(x.vals, MIN, ORDER, null);
+			r.next = x.next;
+			if (x.next != null) x.next.prev = r;
+			x.next = r;
+			r.prev = x;
+		}
+		else {
+			System.arraycopy(x.kids, MIN, r.kids, 0, m);
+			System.arraycopy(x.counts, MIN, r.counts, 0, m);
+			Arrays.fill(x.kids, MIN, ORDER, null);
+			if (monoid != null) {
+				System.arraycopy(x.aggs, MIN, r.aggs, 0, m);
+				Arrays.fill(x.aggs, MIN, ORDER, null);
+			}
+		}
+		x.n = MIN;
+		r.n = m;
+		return r;
+	}
+
+	/*************************************************************************
+	 *  Deletion
+	 *************************************************************************/
+
+	// delete the key-value pair with the minimum key
+	public void deleteMin() {
+		if (isEmpty()) throw new NoSuchElementException("BST underflow");
+		delete(min());
+	}
+
+	// delete the key-value pair with the maximum key
+	public void deleteMax() {
+		if (isEmpty()) throw new NoSuchElementException("BST underflow");
+		delete(max());
+	}
+
+	// delete the key-value pair with the given key
+	public void delete(Key key) {
+		if (root == null || !delete(root, key)) return;
+		N--;
+		modCount++;
+		if (root.leaf()) {
+			if (root.n == 0) root = null;
+		}
+		else if (root.n == 1) {
+			// the root lost its last sibling pair: drop a level
+			root = root.kids[0];
+			height--;
+		}
+	}
+
+	// delete key from the subtree rooted at x; false if it was not there
+	private boolean delete(Node x, Key key) {
+		if (x.leaf()) {
+			int i = find(x, key);
+			if (i < 0) return false;
+			System.arraycopy(x.keys, i + 1, x.keys, i, x.n - i - 1);
+			System.arraycopy(x.vals, i + 1, x.vals, i, x.n - i - 1);
+			x.n--;
+			x.keys[x.n] = null;
+			x.vals[x.n] = null;
+			return true;
+		}
+		int j = child(x, key);
+		if (!delete(x.kids[j], key)) return false;
+		x.counts[j]--;
+		if (x.kids[j].n < MIN) refill(x, j);
+		else                   pull(x, j);
+		return true;
+	}
+
+	// child j of x is one entry short: borrow one from a sibling that can
+	// spare it, or else merge with a sibling
+	private void refill(Node x, int j) {
+		if      (j > 0 && x.kids[j-1].n > MIN)       borrowLeft(x, j);
+		else if (j + 1 < x.n && x.kids[j+1].n > MIN) borrowRight(x, j);
+		else if (j > 0)                              merge(x, j - 1);
+		else                                         merge(x, j);
+	}
+
+	// move the last entry of child j-1 of x to the front of child j
+	private void borrowLeft(Node x, int j) {
+		Node l = x.kids[j-1], y = x.kids[j];
+		int last = l.n - 1;
+		int moved;
+		System.arraycopy(y.keys, 0, y.keys, 1, y.n);
+		if (y.leaf()) {
+			System.arraycopy(y.vals, 0, y.vals, 1, y.n);
+			y.keys[0] = l.keys[last];
+			y.vals[0] = l.vals[last];
+			l.vals[last] = null;
+			moved = 1;
+		}
+		else {
+			System.arraycopy(y.kids, 0, y.kids, 1, y.n);
+			System.arraycopy(y.counts, 0, y.counts, 1, y.n);
+			if (monoid != null) System.arraycopy(y.aggs, 0, y.aggs, 1, y.n);
+			y.keys[1] = x.keys[j];   // the old first child of y keeps its bound
+			y.keys[0] = l.keys[last];
+			y.kids[0] = l.kids[last];
+			y.counts[0] = l.counts[last];
+			if (monoid != null) y.aggs[0] = l.aggs[last];
+			moved = l.counts[last];
+			l.kids[last] = null;
+			if (monoid != null) l.aggs[last] = null;
+		}
+		l.keys[last] = null;
+		l.n--;
+		y.n++;
+		x.keys[j] = y.keys[0];
+		x.counts[j-1] -= moved;
+		x.counts[j] += moved;
+		pull(x, j - 1);
+		pull(x, j);
+	}
+
+	// move the first entry of child j+1 of x to the end of child j
+	private void borrowRight(Node x, int j) {
+		Node y = x.kids[j], r = x.kids[j+1];
+		int moved;
+		if (y.leaf()) {
+			y.keys[y.n] = r.keys[0];
+			y.vals[y.n] = r.vals[0];
+			System.arraycopy(r.vals, 1, r.vals, 0, r.n - 1);
+			r.vals[r.n-1] = null;
+			moved = 1;
+		}
+		else {
+			y.keys[y.n] = x.keys[j+1];   // the bound of r is that of its first child
+			y.kids[y.n] = r.kids[0];
+			y.counts[y.n] = r.counts[0];
+			if (monoid != null) y.aggs[y.n] = r.aggs[0];
+			moved = r.counts[0];
+			System.arraycopy(r.kids, 1, r.kids, 0, r.n - 1);
+			System.arraycopy(r.counts, 1, r.counts, 0, r.n - 1);
+			r.kids[r.n-1] = null;
+			if (monoid != null) {
+				System.arraycopy(r.aggs, 1, r.aggs, 0, r.n - 1);
+				r.aggs[r.n-1] = null;
+			}
+		}
+		System.arraycopy(r.keys, 1, r.keys, 0, r.n - 1);
+		r.keys[r.n-1] = null;
+		r.n--;
+		y.n++;
+		x.keys[j+1] = r.keys[0];
+		x.counts[j] += moved;
+		x.counts[j+1] -= moved;
+		pull(x, j);
+		pull(x, j + 1);
+	}
+
+	// append child j+1 of x to child j and remove it from x
+	private void merge(Node x, int j) {
+		Node l = x.kids[j], r = x.kids[j+1];
+		System.arraycopy(r.keys, 0, l.keys, l.n, r.n);
+		if (l.leaf()) {
+			System.arraycopy(r.vals, 0, l.vals, l.n, r.n);
+			l.next = r.next;
+			if (r.next != null) r.next.prev = l;
+		}
+		else {
+			l.keys[l.n] = x.keys[j+1];
+			System.arraycopy(r.kids, 0, l.kids, l.n, r.n);
+			System.arraycopy(r.counts, 0, l.counts, l.n, r.n);
+			if (monoid != null) System.arraycopy(r.aggs, 0, l.aggs, l.n, r.n);
+		}
+		l.n += r.n;
+		x.counts[j] += x.counts[j+1];
+
+		int tail = x.n - j - 2;
+		System.arraycopy(x.keys,   j + 2, x.keys,   j + 1, tail);
+		System.arraycopy(x.kids,   j + 2, x.kids,   j + 1, tail);
+		System.arraycopy(x.counts, j + 2, x.counts, j + 1, tail);
+		if (monoid != null) {
+			System.arraycopy(x.aggs, j + 2, x.aggs, j + 1, tail);
+			x.aggs[x.n-1] = null;
+		}
+		x.n--;
+		x.keys[x.n] = null;
+		x.kids[x.n] = null;
+		pull(x, j);
+	}
+
+	/*************************************************************************
+	 *  Utility functions
+	 *************************************************************************/
+
+	// height of tree (a tree that is a single leaf has height 0)
+	public int height() {
+		return root == null ? -1 : height;
+	}
+
+	/*************************************************************************
+	 *  Ordered symbol table methods.
+	 *************************************************************************/
+
+	// the smallest key; null if no such key
+	public Key min() {
+		if (isEmpty()) return null;
+		Node x = root;
+		while (!x.leaf()) x = x.kids[0];
+		return x.keys[0];
+	}
+
+	// the largest key; null if no such key
+	public Key max() {
+		if (isEmpty()) return null;
+		Node x = root;
+		while (!x.leaf()) x = x.kids[x.n-1];
+		return x.keys[x.n-1];
+	}
+
+	// the largest key less than or equal to the given key
+	public Key floor(Key key) {
+		if (isEmpty()) return null;
+		Node x = leaf(key);
+		int i = find(x, key);
+		if (i >= 0) return key;
+		i = -i - 2;
+		if (i >= 0)          return x.keys[i];
+		if (x.prev != null)  return x.prev.keys[x.prev.n-1];
+		return null;
+	}
+
+	// the smallest key greater than or equal to the given key
+	public Key ceiling(Key key) {
+		if (isEmpty()) return null;
+		Node x = leaf(key);
+		int i = find(x, key);
+		if (i >= 0) return key;
+		i = -i - 1;
+		if (i < x.n)         return x.keys[i];
+		if (x.next != null)  return x.next.keys[0];
+		return null;
+	}
+
+	// the key of rank k
+	public Key getValByRank(int k) {
+		if (k < 0 || k >= N)
+			return null;
+		Node x = root;
+		while (!x.leaf()) {
+			int j = 0;
+			while (k >= x.counts[j]) k -= x.counts[j++];
+			x = x.kids[j];
+		}
+		return x.keys[k];
+	}
+
+	// number of keys less than key
+	public int rank(Key key) {
+		return rank(key, false);
+	}
+
+	// number of keys less than key, or no greater than key if inclusive
+	private int rank(Key key, boolean inclusive) {
+		if (root == null) return 0;
+		int rank = 0;
+		Node x = root;
+		while (!x.leaf()) {
+			int j = child(x, key);
+			for (int t = 0; t < j; t++) rank += x.counts[t];
+			x = x.kids[j];
+		}
+		int i = find(x, key);
+		if (i < 0)     return rank - i - 1;
+		if (inclusive) return rank + i + 1;
+		return rank + i;
+	}
+
+	/***********************************************************************
+	 *  Range count and range search.
+	 ***********************************************************************/
+
+	// all of the keys, as an Iterable
+	public Iterable<Key> keys() {
+		return keys(min(), max());
+	}
+
+	// the keys between lo and hi, as an Iterable. Nothing is copied: a
+	// cursor walks the leaves as the iteration goes, and changing the tree
+	// during the iteration makes it throw ConcurrentModificationException
+	public Iterable<Key> keys(Key lo, Key hi) {
+		return () -> new RangeIterator(lo, hi);
+	}
+
+	// the entries with keys between lo and hi, in key order, read the
+	// same way as keys(lo, hi)
+	public Iterable<Map.Entry<Key, Value>> entries(Key lo, Key hi) {
+		return () -> new Iterator<Map.Entry<Key, Value>>() {
+			private final RangeIterator keys = new RangeIterator(lo, hi);
+
+			public boolean hasNext() { return keys.hasNext(); }
+
+			public Map.Entry<Key, Value> next() {
+				keys.advance();
+				return new AbstractMap.SimpleImmutableEntry<Key, Value>(keys.leaf.keys[keys.i], keys.leaf.vals[keys.i]);
+			}
+		};
+	}
+
+	// number keys between lo and hi
+	public int rangeCount(Key lo, Key hi) {
+		if (hi.compareTo(lo) < 0) return 0;
+		return rank(hi, true) - rank(lo, false);
+	}
+
+	// the values of all keys combined in key order
+	public Value aggregate() {
+		if (monoid == null) throw new UnsupportedOperationException("tree has no monoid");
+		return isEmpty() ? monoid.identity() : aggregate(root);
+	}
+
+	// the values of the keys between lo and hi combined in key order; the
+	// identity if there are none
+	public Value rangeAggregate(Key lo, Key hi) {
+		if (monoid == null) throw new UnsupportedOperationException("tree has no monoid");
+		if (isEmpty() || hi.compareTo(lo) < 0) return monoid.identity();
+		return rangeAggregate(root, lo, hi);
+	}
+
+	// the values under x with keys between lo and hi combined; a null
+	// bound is open. The children strictly between the two boundary
+	// children count as a whole, so the work is O(ORDER) per level.
+	private Value rangeAggregate(Node x, Key lo, Key hi) {
+		if (lo == null && hi == null) return aggregate(x);
+		if (x.leaf()) {
+			int a = 0, b = x.n;
+			if (lo != null) { a = find(x, lo); if (a < 0) a = -a - 1; }
+			if (hi != null) { b = find(x, hi); b = b < 0 ? -b - 1 : b + 1; }
+			Value agg = monoid.identity();
+			for (int i = a; i < b; i++) agg = monoid.combine(agg, x.vals[i]);
+			return agg;
+		}
+		int a = lo == null ? 0 : child(x, lo);
+		int b = hi == null ? x.n - 1 : child(x, hi);
+		if (a == b) return rangeAggregate(x.kids[a], lo, hi);
+		Value agg = rangeAggregate(x.kids[a], lo, null);
+		for (int j = a + 1; j < b; j++) agg = monoid.combine(agg, x.aggs[j]);
+		return monoid.combine(agg, rangeAggregate(x.kids[b], null, hi));
+	}
+
+	// the k smallest keys, smallest first
+	public Iterable<Key> kSmallest(int k) {
+		if (k < 0 || k > N)
+			return null;
+		return () -> new RangeIterator(k, false);
+	}
+
+	// the k largest keys, largest first
+	public Iterable<Key> kLargest(int k) {
+		if (k < 0 || k > N)
+			return null;
+		return () -> new RangeIterator(k, true);
+	}
+
+	// The entries of [lo, hi] from the offset-th on, at most limit of them,
+	// with the key to continue from, as in RedBlackBST.page()
+	public Page page(Key lo, Key hi, int offset, int limit) {
+		if (offset < 0 || limit < 0) throw new IllegalArgumentException("negative offset or limit");
+		List<Map.Entry<Key, Value>> entries = new ArrayList<Map.Entry<Key, Value>>(Math.min(limit, 1024));
+		Cursor c = cursor();
+		long r = (long) rank(lo) + offset;
+		if (r < N && c.seekRank((int) r))
+			while (c.valid() && hi.compareTo(c.key()) >= 0 && entries.size() < limit) {
+				entries.add(c.entry());
+				c.next();
+			}
+		Key next = c.valid() && hi.compareTo(c.key()) >= 0 ? c.key() : null;
+		return new Page(entries, next);
+	}
+
+	// one page of a range, see page()
+	public class Page {
+		private final List<Map.Entry<Key, Value>> entries;
+		private final Key next;
+
+		private Page(List<Map.Entry<Key, Value>> entries, Key next) {
+			this.entries = entries;
+			this.next = next;
+		}
+
+		// the entries of this page, in key order
+		public List<Map.Entry<Key, Value>> entries() { return entries; }
+
+		// where the next page starts; null if this is the last one
+		public Key next() { return next; }
+	}
+
+	/*************************************************************************
+	 *  Cursor
+	 *
+	 *  A leaf and a position in it. next() and prev() step through the
+	 *  array and follow the leaf links at its ends. A cursor that walks
+	 *  off either end is no longer valid and has to be positioned again
+	 *  with one of the seeks.
+	 *************************************************************************/
+
+	// a cursor that is not positioned yet
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	public class Cursor {
+		private Node leaf;     // null when the cursor is not on a key
+		private int i;         // position in leaf
+		private int rank;      // rank of the current key
+		private int expected = modCount;
+
+		private void checkMod() {
+			if (modCount != expected) throw new ConcurrentModificationException();
+		}
+
+		private void current() {
+			checkMod();
+			if (leaf == null) throw new NoSuchElementException("cursor is not on a key");
+		}
+
+		// is the cursor on a key?
+		public boolean valid() {
+			checkMod();
+			return leaf != null;
+		}
+
+		// the current key
+		public Key key() {
+			current();
+			return leaf.keys[i];
+		}
+
+		// the current value
+		public Value value() {
+			current();
+			return leaf.vals[i];
+		}
+
+		// the current key and value
+		public Map.Entry<Key, Value> entry() {
+			current();
+			return new AbstractMap.SimpleImmutableEntry<Key, Value>(leaf.keys[i], leaf.vals[i]);
+		}
+
+		// number of keys less than the current key
+		public int rank() {
+			current();
+			return rank;
+		}
+
+		// go to the smallest key >= key; false if there is none
+		public boolean seek(Key key) {
+			expected = modCount;
+			leaf = null;
+			if (root == null) return false;
+			rank = BPlusTree.this.rank(key);
+			Node x = leaf(key);
+			int p = find(x, key);
+			if (p < 0) p = -p - 1;
+			if (p == x.n) {
+				x = x.next;
+				p = 0;
+			}
+			leaf = x;
+			i = p;
+			return leaf != null;
+		}
+
+		// go to the key of rank r; false if r is out of range
+		public boolean seekRank(int r) {
+			expected = modCount;
+			leaf = null;
+			if (r < 0 || r >= N) return false;
+			rank = r;
+			Node x = root;
+			while (!x.leaf()) {
+				int j = 0;
+				while (r >= x.counts[j]) r -= x.counts[j++];
+				x = x.kids[j];
+			}
+			leaf = x;
+			i = r;
+			return true;
+		}
+
+		// go to the smallest key; false if the tree is empty
+		public boolean seekFirst() { return seekRank(0); }
+
+		// go to the largest key; false if the tree is empty
+		public boolean seekLast() { return seekRank(N - 1); }
+
+		// go to the next key; false if there is none
+		public boolean next() {
+			current();
+			rank++;
+			if (++i == leaf.n) {
+				leaf = leaf.next;
+				i = 0;
+			}
+			return leaf != null;
+		}
+
+		// go to the previous key; false if there is none
+		public boolean prev() {
+			current();
+			rank--;
+			if (--i < 0) {
+				leaf = leaf.prev;
+				i = leaf == null ? 0 : leaf.n - 1;
+			}
+			return leaf != null;
+		}
+	}
+
+	// Walks a cursor over [lo, hi] or over the first k keys from either
+	// end, seeking on the first call
+	private class RangeIterator implements Iterator<Key> {
+		private final Cursor c = new Cursor();
+		private final Key lo, hi;        // null for a k-key walk
+		private final boolean backward;
+		private int remaining;           // keys still to return
+		private boolean started;
+		private boolean more;            // is the cursor on a key to return?
+		private Node leaf;               // where the key advance() passed is
+		private int i;
+
+		RangeIterator(Key lo, Key hi) {
+			this.lo = lo;
+			this.hi = hi;
+			this.backward = false;
+			this.remaining = Integer.MAX_VALUE;
+		}
+
+		RangeIterator(int k, boolean backward) {
+			this.lo = null;
+			this.hi = null;
+			this.backward = backward;
+			this.remaining = k;
+		}
+
+		// is the cursor on a key that is still in the range?
+		private boolean inRange() {
+			return c.leaf != null && (hi == null || hi.compareTo(c.leaf.keys[c.i]) >= 0);
+		}
+
+		public boolean hasNext() {
+			if (!started) {
+				started = true;
+				if (remaining == 0)  return false;
+				if (lo != null)      c.seek(lo);
+				else if (backward)   c.seekLast();
+				else                 c.seekFirst();
+				more = inRange();
+			}
+			return more;
+		}
+
+		// step past the current key, leaving it in leaf and i
+		void advance() {
+			if (!hasNext()) throw new NoSuchElementException();
+			c.checkMod();
+			leaf = c.leaf;
+			i = c.i;
+			if (--remaining == 0) more = false;
+			else {
+				if (backward) c.prev();
+				else          c.next();
+				more = inRange();
+			}
+		}
+
+		public Key next() {
+			advance();
+			return leaf.keys[i];
+		}
+	}
+
+	/*************************************************************************
+	 *  Check integrity of the B+tree data structure
+	 *************************************************************************/
+	private boolean check() {
+		boolean ordered = isOrdered(), counted = isCountConsistent(), linked = isLinked();
+		boolean filled = isFilled(), aggs = isAggConsistent();
+		if (!ordered) StdOut.println("Not in symmetric order");
+		if (!counted) StdOut.println("Subtree counts not consistent");
+		if (!linked)  StdOut.println("Leaf links not consistent");
+		if (!filled)  StdOut.println("Nodes under-filled or leaves at different depths");
+		if (!aggs)    StdOut.println("Aggregates not consistent");
+		return ordered && counted && linked && filled && aggs;
+	}
+
+	// does every child hold only keys between its lower bound and the next?
+	private boolean isOrdered() { return root == null || isOrdered(root, null, null); }
+	private boolean isOrdered(Node x, Key lo, Key hi) {
+		for (int j = 0; j < x.n; j++) {
+			if (x.leaf()) {
+				Key key = x.keys[j];
+				if (lo != null && key.compareTo(lo) < 0)  return false;
+				if (hi != null && key.compareTo(hi) >= 0) return false;
+				if (j > 0 && x.keys[j-1].compareTo(key) >= 0) return false;
+			}
+			else {
+				Key a = j == 0 ? lo : x.keys[j];
+				Key b = j == x.n - 1 ? hi : x.keys[j+1];
+				if (j > 0 && lo != null && a.compareTo(lo) < 0) return false;
+				if (!isOrdered(x.kids[j], a, b)) return false;
+			}
+		}
+		return true;
+	}
+
+	// are the counts right, and does N match them?
+	private boolean isCountConsistent() {
+		return root == null ? N == 0 : isCountConsistent(root) && size(root) == N;
+	}
+	private boolean isCountConsistent(Node x) {
+		if (x.leaf()) return true;
+		for (int j = 0; j < x.n; j++)
+			if (x.counts[j] != size(x.kids[j]) || !isCountConsistent(x.kids[j])) return false;
+		return true;
+	}
+
+	// do the leaf links visit every key in order, both ways?
+	private boolean isLinked() {
+		if (root == null) return true;
+		Node x = root;
+		while (!x.leaf()) x = x.kids[0];
+		if (x.prev != null) return false;
+		int count = 0;
+		for (Node prev = null; x != null; prev = x, x = x.next) {
+			if (x.prev != prev) return false;
+			if (prev != null && prev.keys[prev.n-1].compareTo(x.keys[0]) >= 0) return false;
+			count += x.n;
+		}
+		return count == N;
+	}
+
+	// is every node but the root at least half full, with all leaves at
+	// the same depth?
+	private boolean isFilled() {
+		return root == null || isFilled(root, height);
+	}
+	private boolean isFilled(Node x, int depth) {
+		if (x != root && x.n < MIN) return false;
+		if (x == root && !x.leaf() && x.n < 2) return false;
+		if (x.leaf()) return depth == 0;
+		for (int j = 0; j < x.n; j++)
+			if (!isFilled(x.kids[j], depth - 1)) return false;
+		return true;
+	}
+
+	// are the aggregates correct? (true without a monoid)
+	private boolean isAggConsistent() { return monoid == null || root == null || isAggConsistent(root); }
+	private boolean isAggConsistent(Node x) {
+		if (x.leaf()) return true;
+		for (int j = 0; j < x.n; j++)
+			if (!Objects.equals(x.aggs[j], aggregate(x.kids[j])) || !isAggConsistent(x.kids[j])) return false;
+		return true;
+	}
+}
@@ -0,0 +1,373 @@
+/*************************************************************************
+ *  Compilation:  javac CuckooHashST.java
+ *
+ *  Symbol table implementation with bucketized cuckoo hashing.
+ *
+ *  Same API as LinearProbingHashST. Each key has two candidate buckets
+ *  of 4 slots. The first comes from the mixed hash. The second is the
+ *  first XORed with an odd tag taken from the high hash bits, so the two
+ *  always differ, and either one gives the other. A search looks at
+ *  those 8 slots and, only when it is not empty, a stash of 8 more. So
+ *  every lookup costs at most 16 key compares, whatever the load or the
+ *  key distribution.
+ *
+ *  An insert that finds both buckets full evicts a random entry of one
+ *  of them to that entry's other bucket, and repeats this up to
+ *  MAX_KICKS times. The entry still homeless at the end goes to the
+ *  stash. The table doubles when the stash is full or 95% of the bucket
+ *  slots are used. Keys whose hash codes are all equal cannot be spread
+ *  out by growing; past 16 of them insert throws IllegalStateException.
+ *
+ *************************************************************************/
+import java.util.*;
+
+public class CuckooHashST<Key extends Comparable<Key>, Value>{
+    private static final int INIT_CAPACITY = 16;
+    private static final int SLOTS = 4;        // slots per bucket
+    private static final int STASH = 8;        // overflow slots searched after both buckets
+    private static final int MAX_KICKS = 500;  // evictions tried before using the stash
+    private static final int MAX_GROW = 3;     // doublings tried before giving up on a key
+
+    private int N;           // number of key-value pairs in the symbol table
+    private int B;           // number of buckets, a power of two
+    private int mask;        // B - 1
+    private Key[] keys;      // bucket b is keys[b*SLOTS .. b*SLOTS+SLOTS), the stash follows
+    private Value[] vals;    // the values
+    private int stashN;      // entries in the stash
+    private int random = 0x2545F491;   // xorshift state for picking victims
+
+    // create an empty hash table - use 16 as default size
+    public CuckooHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a cuckoo hash table that takes capacity keys without resizing
+    public CuckooHashST(int capacity) {
+        int buckets = (int) Math.max(2, (20L * capacity / 19 + SLOTS - 1) / SLOTS);
+        init(Integer.highestOneBit(buckets - 1) << 1);
+    }
+
+    private void init(int buckets) {
+        B = buckets;
+        mask = B - 1;
+        keys = (Key[])   new Comparable[B * SLOTS + STASH];
+        vals = (Value[]) new Object[B * SLOTS + STASH];
+        stashN = 0;
+    }
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        return N;
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // number of bucket slots (the stash not included)
+    public int capacity() {
+        return B * SLOTS;
+    }
+
+    // entries in the stash right now
+    public int stashSize() {
+        return stashN;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(Key key) {
+        return search(key) != null;
+    }
+
+    // hash code of the key, scrambled (MurmurHash3 finalizer)
+    private static int mix(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // first bucket of mixed hash h
+    private int bucket(int h) {
+        return h & mask;
+    }
+
+    // the other bucket of mixed hash h, given one of its two buckets
+    private int other(int h, int b) {
+        return (b ^ (((h >>> 16) * 0x5bd1e995) | 1)) & mask;
+    }
+
+    // slot of the key, -1 if it is not there
+    private int slot(Key key) {
+        int h = mix(key);
+        int b1 = bucket(h), b2 = other(h, b1);
+        for (int i = b1 * SLOTS; i < b1 * SLOTS + SLOTS; i++)
+            if (key.equals(keys[i])) return i;
+        for (int i = b2 * SLOTS; i < b2 * SLOTS + SLOTS; i++)
+            if (key.equals(keys[i])) return i;
+        for (int i = B * SLOTS; i < B * SLOTS + stashN; i++)
+            if (key.equals(keys[i])) return i;
+        return -1;
+    }
+
+    // free slot in bucket b, -1 if it is full
+    private int freeSlot(int b) {
+        for (int i = b * SLOTS; i < b * SLOTS + SLOTS; i++)
+            if (keys[i] == null) return i;
+        return -1;
+    }
+
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        return random;
+    }
+
+    // place a key that is known to be absent; false if it did not fit
+    // even in the stash (the table is unchanged then)
+    private boolean place(Key key, Value val) {
+        int h = mix(key);
+        int b = bucket(h);
+        int i = freeSlot(b);
+        if (i < 0) i = freeSlot(b = other(h, b));
+        if (i >= 0) {
+            keys[i] = key;
+            vals[i] = val;
+            return true;
+        }
+        if (stashN == STASH) return false;
+
+        // random-walk eviction, starting from the second bucket
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            i = b * SLOTS + (nextRandom() & (SLOTS - 1));
+            Key   k = keys[i]; keys[i] = key; key = k;
+            Value v = vals[i]; vals[i] = val; val = v;
+
+            h = mix(key);
+            b = other(h, b);
+            i = freeSlot(b);
+            if (i >= 0) {
+                keys[i] = key;
+                vals[i] = val;
+                return true;
+            }
+        }
+        keys[B * SLOTS + stashN] = key;
+        vals[B * SLOTS + stashN] = val;
+        stashN++;
+        return true;
+    }
+
+    // rehash every key into a table with the given number of buckets
+    private void resize(int buckets) {
+        Key[] oldKeys = keys;
+        Value[] oldVals = vals;
+        int grow = 0;
+        retry:
+        while (true) {
+            init(buckets);
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldKeys[i] != null && !place(oldKeys[i], oldVals[i])) {
+                    // very unlucky: grow again and start over
+                    if (++grow > MAX_GROW) collision();
+                    buckets *= 2;
+                    continue retry;
+                }
+            return;
+        }
+    }
+
+    // more than 16 keys with equal hash codes never fit, however big
+    // the table gets
+    private static void collision() {
+        throw new IllegalStateException("too many keys with colliding hash codes");
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(Key key, Value val) {
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        int i = slot(key);
+        if (i >= 0) { vals[i] = val; return; }
+
+        // double table size if 95% of the bucket slots are used
+        if (20L * (N + 1) > 19L * B * SLOTS) resize(2 * B);
+
+        for (int grow = 0; !place(key, val); grow++) {   // the stash is full
+            if (grow == MAX_GROW) collision();
+            resize(2 * B);
+        }
+        N++;
+    }
+
+    // return the value associated with the given key, null if no such value
+    public Value search(Key key) {
+        int i = slot(key);
+        return i >= 0 ? vals[i] : null;
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(Key key) {
+        int i = slot(key);
+        if (i < 0) return;
+        int last = B * SLOTS + stashN - 1;
+        if (i >= B * SLOTS && i < last) {
+            // keep the stash packed
+            keys[i] = keys[last];
+            vals[i] = vals[last];
+            i = last;
+        }
+        if (i >= B * SLOTS) stashN--;
+        keys[i] = null;
+        vals[i] = null;
+        N--;
+    }
+
+    /*************************************************************************
+     *  Ordered symbol table methods - all of them scan the buckets and
+     *  the stash
+     *************************************************************************/
+
+    // return all of the keys as in Iterable
+    public Iterable<Key> keys() {
+        Queue<Key> queue = new Queue<Key>();
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null) queue.enqueue(keys[i]);
+        return queue;
+    }
+
+    // copy the keys into a new array
+    private Key[] gather() {
+        Key[] a = (Key[]) new Comparable[N];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null) a[n++] = keys[i];
+        return a;
+    }
+
+    public int rank(Key key){
+    	int rank = 0;
+    	for (int i = 0; i < keys.length; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (key.compareTo(keys[i]) > 0)
+    			rank++;
+    	}
+    	return rank;
+    }
+
+    public Key getValByRank(int k){
+    	if (k >= N || k < 0)
+    		return null;
+    	if (Selection.useSelection(Math.min(k + 1, N - k), N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, k);
+    		return a[k];
+    	}
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k+1);
+    	for (int i = 0; i < keys.length; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() <= k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
+    		{
+    			heap.delMax();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	return heap.returnMax();
+    }
+
+    // the k smallest keys, largest first (the order of LinearProbingHashST)
+    public Iterable<Key> kSmallest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kSmallestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kSmallestKeys;
+    	if (Selection.useSelection(k, N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, k - 1);
+    		Arrays.sort(a, 0, k);
+    		for (int i = k - 1; i >= 0; i--)
+    			kSmallestKeys.enqueue(a[i]);
+    		return kSmallestKeys;
+    	}
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k);
+    	for (int i = 0; i < keys.length; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
+    		{
+    			heap.delMax();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kSmallestKeys.enqueue(heap.delMax());
+    	return kSmallestKeys;
+    }
+
+    // the k largest keys, smallest first (the order of LinearProbingHashST)
+    public Iterable<Key> kLargest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kLargestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kLargestKeys;
+    	if (Selection.useSelection(k, N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, N - k);
+    		Arrays.sort(a, N - k, N);
+    		for (int i = N - k; i < N; i++)
+    			kLargestKeys.enqueue(a[i]);
+    		return kLargestKeys;
+    	}
+    	MinHeap<Key> heap = new MinHeap<Key>(k);
+    	for (int i = 0; i < keys.length; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMin().compareTo(keys[i]) < 0)
+    		{
+    			heap.delMin();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kLargestKeys.enqueue(heap.delMin());
+    	return kLargestKeys;
+    }
+
+    public int rangeCount(Key low, Key high){
+    	if (high.compareTo(low) < 0)
+    		return 0;
+    	int count = 0;
+    	for (int i = 0; i < keys.length; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (low.compareTo(keys[i]) <= 0 && high.compareTo(keys[i]) >= 0)
+    			count++;
+    	}
+    	return count;
+    }
+}
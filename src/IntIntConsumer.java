@@ -0,0 +1,12 @@
+/*************************************************************************
+ *  Compilation:  javac IntIntConsumer.java
+ *
+ *  An action on an int key and its int value, for forEachEntry on the
+ *  int hash tables. java.util.function has no int-int consumer, and a
+ *  BiConsumer<Integer, Integer> would box every pair.
+ *
+ *************************************************************************/
+@FunctionalInterface
+public interface IntIntConsumer {
+    void accept(int key, int value);
+}
@@ -0,0 +1,427 @@
+/*************************************************************************
+ *  Compilation:  javac IntIntLinearProbingHash.java
+ *
+ *  Linear probing hash table specialized for int keys and int values.
+ *
+ *  Keys and values live in two parallel int[] arrays, so no operation
+ *  boxes anything or goes through hashCode()/equals()/compareTo(). A free
+ *  slot is marked by the key 0; the key 0 itself is stored outside the
+ *  arrays. The capacity is always a power of two and keys are mixed
+ *  before masking, so sequential keys do not form long clusters.
+ *
+ *  Per entry this uses 8 bytes at 100% load (16 at the 50% maximum load)
+ *  against two references plus two Integer objects for
+ *  LinearProbingHashST<Integer, Integer>.
+ *
+ *  rank and rangeCount count over the whole key array without skipping
+ *  free slots (see IntScanKernels) and subtract the free slots after.
+ *  getValByRank, kSmallest and kLargest use a bounded heap for ranks near
+ *  either end and introselect over the gathered keys otherwise (see
+ *  Selection).
+ *
+ *  insertAll, searchAll and deleteAll take keys in groups of BATCH. They
+ *  hash the whole group and load every home slot before resolving any
+ *  key, so the cache misses of the group overlap instead of each key
+ *  waiting for the one before it.
+ *
+ *************************************************************************/
+import java.util.*;
+import java.util.function.IntConsumer;
+
+public class IntIntLinearProbingHash {
+    public static final int NO_VALUE = Integer.MIN_VALUE;   // returned for absent keys
+    private static final int INIT_CAPACITY = 16;
+    private static final int EMPTY = 0;                     // key marking a free slot
+    private static final int BATCH = 64;                    // keys whose probes are interleaved
+    private int N;           // number of key-value pairs in the symbol table
+    private int M;           // size of linear probing table, a power of two
+    private int mask;        // M - 1
+    private int[] keys;      // the keys
+    private int[] vals;      // the values
+    private boolean hasEmptyKey;   // is the key 0 present?
+    private int emptyKeyVal;       // value of the key 0
+    private int[] heap = new int[16];   // scratch buffer reused by the order queries
+    private final int[] batchSlot = new int[BATCH];   // home slots of the current group
+    private final int[] batchKey = new int[BATCH];    // what those slots held when loaded
+    private final int[] batchVal = new int[BATCH];
+
+    // branch-free count loops for rank and rangeCount, vectorized when available
+    private static final IntScanKernels KERNELS = IntScanKernels.best();
+
+    // create an empty hash table - use 16 as default size
+    public IntIntLinearProbingHash() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a hash table with at least the given number of slots
+    public IntIntLinearProbingHash(int capacity) {
+        M = tableSizeFor(capacity);
+        mask = M - 1;
+        keys = new int[M];
+        vals = new int[M];
+    }
+
+    // smallest power of two >= capacity
+    private static int tableSizeFor(int capacity) {
+        if (capacity <= 2) return 2;
+        if (capacity > (1 << 30)) return 1 << 30;
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        return N;
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // current number of slots
+    public int capacity() {
+        return M;
+    }
+
+    // hash function for keys - returns value between 0 and M-1
+    private int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(int key) {
+        if (key == EMPTY) return hasEmptyKey;
+        return slot(key) >= 0;
+    }
+
+    // slot of the key, -1 if it is not there
+    private int slot(int key) {
+        return slot(key, hash(key));
+    }
+
+    // slot of the key probing from slot i, -1 if it is not there
+    private int slot(int key, int i) {
+        for (; keys[i] != EMPTY; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return i;
+        return -1;
+    }
+
+    // place a key that is known to be absent
+    private void put(int key, int val) {
+        int i;
+        for (i = hash(key); keys[i] != EMPTY; i = (i + 1) & mask) ;
+        keys[i] = key;
+        vals[i] = val;
+    }
+
+    // rehash every key into a table with the given number of slots
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldVals = vals;
+        M = capacity;
+        mask = M - 1;
+        keys = new int[M];
+        vals = new int[M];
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldVals[i]);
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(int key, int val) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) N++;
+            hasEmptyKey = true;
+            emptyKeyVal = val;
+            return;
+        }
+        int i = slot(key);
+        if (i >= 0) { vals[i] = val; return; }
+
+        // double table size if 50% full
+        if (2 * (N + 1) > M && M < (1 << 30)) resize(2 * M);
+
+        put(key, val);
+        N++;
+    }
+
+    // return the value associated with the given key, NO_VALUE if no such value
+    public int search(int key) {
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyVal : NO_VALUE;
+        for (int i = hash(key); keys[i] != EMPTY; i = (i + 1) & mask)
+            if (keys[i] == key)
+                return vals[i];
+        return NO_VALUE;
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(int key) {
+        if (key == EMPTY) {
+            if (hasEmptyKey) N--;
+            hasEmptyKey = false;
+            return;
+        }
+        int i = slot(key);
+        if (i >= 0) removeSlot(i);
+    }
+
+    // empty slot i and close the gap in its cluster
+    private void removeSlot(int i) {
+        // backward-shift deletion: pull back every later entry of the
+        // cluster whose home slot is not cyclically in (i, j]
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int h = hash(keys[j]);
+            if (((j - h) & mask) < ((j - i) & mask)) continue;
+            keys[i] = keys[j];
+            vals[i] = vals[j];
+            i = j;
+        }
+        keys[i] = EMPTY;
+        N--;
+    }
+
+    // call action with every key; nothing is allocated
+    public void forEachKey(IntConsumer action) {
+        if (hasEmptyKey) action.accept(EMPTY);
+        for (int i = 0; i < M; i++)
+            if (keys[i] != EMPTY) action.accept(keys[i]);
+    }
+
+    // call action with every key and its value; nothing is allocated
+    public void forEachEntry(IntIntConsumer action) {
+        if (hasEmptyKey) action.accept(EMPTY, emptyKeyVal);
+        for (int i = 0; i < M; i++)
+            if (keys[i] != EMPTY) action.accept(keys[i], vals[i]);
+    }
+
+    /*************************************************************************
+     *  Batched operations
+     *************************************************************************/
+
+    // hash keys src[from..from+n) and load their home slots; the loads do
+    // not depend on each other, so the CPU keeps them in flight together.
+    // They are kept in batchKey/batchVal, where the JIT cannot drop them
+    private void loadGroup(int[] src, int from, int n) {
+        for (int j = 0; j < n; j++) batchSlot[j] = hash(src[from + j]);
+        for (int j = 0; j < n; j++) {
+            batchKey[j] = keys[batchSlot[j]];
+            batchVal[j] = vals[batchSlot[j]];
+        }
+    }
+
+    // insert the pairs (keys[i], vals[i]); a later pair wins over an
+    // earlier one with the same key, as with repeated insert calls
+    public void insertAll(int[] keys, int[] vals) {
+        if (keys.length != vals.length)
+            throw new IllegalArgumentException("keys and values differ in length");
+        for (int from = 0; from < keys.length; from += BATCH) {
+            int n = Math.min(BATCH, keys.length - from);
+
+            // make room for the whole group first, so the slots stay valid
+            while (2 * (N + n) > M && M < (1 << 30)) resize(2 * M);
+
+            loadGroup(keys, from, n);
+            for (int j = 0; j < n; j++) {
+                int key = keys[from + j];
+                if (key == EMPTY) { insert(key, vals[from + j]); continue; }
+                int i = batchSlot[j];
+                if (batchKey[j] != key)
+                    for (; this.keys[i] != EMPTY && this.keys[i] != key; i = (i + 1) & mask) ;
+                if (this.keys[i] == EMPTY) {
+                    this.keys[i] = key;
+                    N++;
+                }
+                this.vals[i] = vals[from + j];
+            }
+        }
+    }
+
+    // out[i] = search(keys[i]) for every i
+    public void searchAll(int[] keys, int[] out) {
+        if (out.length < keys.length)
+            throw new IllegalArgumentException("output array shorter than keys");
+        for (int from = 0; from < keys.length; from += BATCH) {
+            int n = Math.min(BATCH, keys.length - from);
+            loadGroup(keys, from, n);
+            for (int j = 0; j < n; j++) {
+                int key = keys[from + j];
+                if (key == EMPTY) out[from + j] = search(key);
+                else if (batchKey[j] == key) out[from + j] = batchVal[j];
+                else if (batchKey[j] == EMPTY) out[from + j] = NO_VALUE;
+                else {
+                    int i = slot(key, batchSlot[j]);
+                    out[from + j] = i >= 0 ? vals[i] : NO_VALUE;
+                }
+            }
+        }
+    }
+
+    // delete every key of the array
+    public void deleteAll(int[] keys) {
+        for (int from = 0; from < keys.length; from += BATCH) {
+            int n = Math.min(BATCH, keys.length - from);
+            loadGroup(keys, from, n);
+            // a delete may shift later entries back, so every key is looked
+            // up again from its home slot, which is now in cache
+            for (int j = 0; j < n; j++) {
+                int key = keys[from + j];
+                if (key == EMPTY) { delete(key); continue; }
+                int i = slot(key, batchSlot[j]);
+                if (i >= 0) removeSlot(i);
+            }
+        }
+    }
+
+    /*************************************************************************
+     *  Order queries - all of them scan the slot arrays once
+     *************************************************************************/
+
+    // number of keys less than key
+    public int rank(int key) {
+        // the kernel also counts the free slots, whose key 0 is < key
+        int rank = KERNELS.countLess(keys, 0, M, key);
+        if (EMPTY < key) rank += (hasEmptyKey ? 1 : 0) - freeSlots();
+        return rank;
+    }
+
+    // number of keys between low and high
+    public int rangeCount(int low, int high) {
+        if (high < low) return 0;
+        int count = KERNELS.countBetween(keys, 0, M, low, high);
+        if (low <= EMPTY && EMPTY <= high) count += (hasEmptyKey ? 1 : 0) - freeSlots();
+        return count;
+    }
+
+    // number of slots holding no key
+    private int freeSlots() {
+        return M - N + (hasEmptyKey ? 1 : 0);
+    }
+
+    // the key of rank k, NO_VALUE if k is out of range
+    public int getValByRank(int k) {
+        if (k < 0 || k >= N) return NO_VALUE;
+        if (Selection.useSelection(Math.min(k + 1, N - k), N)) {
+            int n = gather();
+            Selection.select(heap, 0, n, k);
+            return heap[k];
+        }
+        if (k + 1 > N - k) {
+            largest(N - k);
+            return ~heap[0];
+        }
+        smallest(k + 1);
+        return heap[0];
+    }
+
+    // the k smallest keys in ascending order
+    public int[] kSmallest(int k) {
+        if (k < 0 || k > N) return null;
+        int[] result = new int[k];
+        if (Selection.useSelection(k, N)) {
+            int n = gather();
+            Selection.select(heap, 0, n, k - 1);
+            System.arraycopy(heap, 0, result, 0, k);
+            Arrays.sort(result);
+            return result;
+        }
+        int size = smallest(k);
+        while (size > 0) {
+            result[size - 1] = heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // the k largest keys in descending order
+    public int[] kLargest(int k) {
+        if (k < 0 || k > N) return null;
+        int[] result = new int[k];
+        if (Selection.useSelection(k, N)) {
+            int n = gather();
+            Selection.select(heap, 0, n, n - k);
+            Arrays.sort(heap, n - k, n);
+            for (int i = 0; i < k; i++) result[i] = heap[n - 1 - i];
+            return result;
+        }
+        int size = largest(k);
+        while (size > 0) {
+            result[size - 1] = ~heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // copy every key into the scratch buffer, return how many
+    private int gather() {
+        if (heap.length < N) heap = new int[Math.max(N, 2 * heap.length)];
+        int n = 0;
+        if (hasEmptyKey) heap[n++] = EMPTY;
+        for (int i = 0; i < M; i++)
+            if (keys[i] != EMPTY) heap[n++] = keys[i];
+        return n;
+    }
+
+    // leave the k smallest keys in a max-heap in heap[0..k), return k
+    private int smallest(int k) {
+        if (k == 0) return 0;
+        if (heap.length < k) heap = new int[Math.max(k, 2 * heap.length)];
+        int size = 0;
+        if (hasEmptyKey) size = push(heap, size, EMPTY);
+        for (int i = 0; i < M; i++) {
+            int key = keys[i];
+            if (key == EMPTY) continue;
+            if (size < k) size = push(heap, size, key);
+            else if (key < heap[0]) { heap[0] = key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    // leave the k largest keys in heap[0..k), stored complemented so the
+    // same max-heap keeps the smallest of them on top
+    private int largest(int k) {
+        if (k == 0) return 0;
+        if (heap.length < k) heap = new int[Math.max(k, 2 * heap.length)];
+        int size = 0;
+        if (hasEmptyKey) size = push(heap, size, ~EMPTY);
+        for (int i = 0; i < M; i++) {
+            int key = keys[i];
+            if (key == EMPTY) continue;
+            if (size < k) size = push(heap, size, ~key);
+            else if (~key < heap[0]) { heap[0] = ~key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    /*************************************************************************
+     *  Max-heap on a prefix of an int[] (0-based)
+     *************************************************************************/
+
+    private static int push(int[] pq, int size, int v) {
+        int k = size;
+        pq[k] = v;
+        while (k > 0 && pq[(k - 1) / 2] < pq[k]) {
+            int p = (k - 1) / 2;
+            int t = pq[p]; pq[p] = pq[k]; pq[k] = t;
+            k = p;
+        }
+        return size + 1;
+    }
+
+    private static int pop(int[] pq, int size) {
+        pq[0] = pq[--size];
+        sink(pq, size);
+        return size;
+    }
+
+    private static void sink(int[] pq, int size) {
+        int k = 0;
+        while (2 * k + 1 < size) {
+            int j = 2 * k + 1;
+            if (j + 1 < size && pq[j] < pq[j + 1]) j++;
+            if (pq[k] >= pq[j]) break;
+            int t = pq[k]; pq[k] = pq[j]; pq[j] = t;
+            k = j;
+        }
+    }
+}
@@ -0,0 +1,556 @@
+/*************************************************************************
+ *  Compilation:  javac IntRedBlackBST.java
+ *
+ *  Left-leaning red-black BST (the algorithms of RedBlackBST) for int
+ *  keys and int values, with the nodes kept in int[] arrays instead of
+ *  Node objects.
+ *
+ *  Node x is the 4 ints tree[x..x+4): key, left link, right link and
+ *  meta, which holds the subtree size shifted left by one with the color
+ *  in the low bit. Values live apart, in vals[x / 4], since only a hit
+ *  reads them. So a search step touches one 16-byte record (one cache
+ *  line) instead of a Node and its Integer key, or a line in each of
+ *  separate key/left/right arrays. Node 0 is NIL, the
+ *  null link: its size is 0 and it is black, so the helpers need no null
+ *  checks. Deleted nodes go on a free list threaded through their left
+ *  links and are reused first. The arrays double when full.
+ *
+ *  Per entry this is 20 bytes (up to 40 right after the arrays double).
+ *  RedBlackBST<Integer, Integer> uses a Node of about 40 bytes plus two
+ *  Integer objects, and each of them is a separate heap object.
+ *
+ *  Key and value queries that find nothing return NO_VALUE, as in
+ *  IntIntLinearProbingHash.
+ *
+ *************************************************************************/
+import java.util.*;
+
+public class IntRedBlackBST {
+
+	public static final int NO_VALUE = Integer.MIN_VALUE;   // returned for absent keys
+	private static final int INIT_CAPACITY = 16;
+	private static final int NIL = 0;       // the null link
+	private static final int RED = 1;       // color bit of meta
+	private static final int BLACK = 0;
+
+	private static final int LEFT = 1, RIGHT = 2, META = 3;   // offsets in a node; the key is at 0
+	private static final int STRIDE = 4;   // ints per node
+	private int[] tree;          // the nodes
+	private int[] vals;          // the value of node x is vals[x >> 2]
+	private int root = NIL;      // root of the BST
+	private int next = STRIDE;   // first never used node
+	private int free = NIL;      // head of the list of deleted nodes
+
+	// create an empty tree
+	public IntRedBlackBST() {
+		this(INIT_CAPACITY);
+	}
+
+	// create an empty tree with room for the given number of keys
+	public IntRedBlackBST(int capacity) {
+		capacity = Math.max(2, capacity + 1);
+		tree = new int[capacity * STRIDE];
+		vals = new int[capacity];
+	}
+
+	/*************************************************************************
+	 *  Node storage
+	 *************************************************************************/
+
+	// a new red node of size 1, from the free list if possible
+	private int newNode(int key, int val) {
+		int x;
+		if (free != NIL) {
+			x = free;
+			free = tree[x + LEFT];
+		}
+		else {
+			if (next == tree.length) grow();
+			x = next;
+			next += STRIDE;
+		}
+		tree[x] = key;
+		vals[x >> 2] = val;
+		tree[x + LEFT] = NIL;
+		tree[x + RIGHT] = NIL;
+		tree[x + META] = 1 << 1 | RED;
+		return x;
+	}
+
+	// put node x on the free list
+	private void freeNode(int x) {
+		tree[x + LEFT] = free;
+		free = x;
+	}
+
+	// double the arrays
+	private void grow() {
+		tree = Arrays.copyOf(tree, 2 * tree.length);
+		vals = Arrays.copyOf(vals, 2 * vals.length);
+	}
+
+	// bytes held by the node and value arrays
+	public long memoryUsed() {
+		return 4L * (tree.length + vals.length);
+	}
+
+	/*************************************************************************
+	 *  Node helper methods
+	 *************************************************************************/
+
+	// is node x red; false if x is NIL
+	private boolean isRed(int x) {
+		return (tree[x + META] & RED) != 0;
+	}
+
+	private void setColor(int x, int color) {
+		tree[x + META] = (tree[x + META] & ~RED) | color;
+	}
+
+	// number of nodes in subtree rooted at x; 0 if x is NIL
+	private int size(int x) {
+		return tree[x + META] >>> 1;
+	}
+
+	private void setSize(int x, int n) {
+		tree[x + META] = n << 1 | (tree[x + META] & RED);
+	}
+
+	/*************************************************************************
+	 *  Size methods
+	 *************************************************************************/
+
+	// return number of key-value pairs in this symbol table
+	public int size() { return size(root); }
+
+	// is this symbol table empty?
+	public boolean isEmpty() {
+		return root == NIL;
+	}
+
+	/*************************************************************************
+	 *  Standard BST search
+	 *************************************************************************/
+
+	// node with the given key; NIL if no such key
+	private int node(int key) {
+		int x = root;
+		while (x != NIL) {
+			if      (key < tree[x]) x = tree[x + LEFT];
+			else if (key > tree[x]) x = tree[x + RIGHT];
+			else                    return x;
+		}
+		return NIL;
+	}
+
+	// value associated with the given key; NO_VALUE if no such key
+	public int search(int key) {
+		int x = node(key);
+		return x == NIL ? NO_VALUE : vals[x >> 2];
+	}
+
+	// is there a key-value pair with the given key?
+	public boolean contains(int key) {
+		return node(key) != NIL;
+	}
+
+	/*************************************************************************
+	 *  Red-black insertion
+	 *************************************************************************/
+
+	// insert the key-value pair; overwrite the old value with the new value
+	// if the key is already present
+	public void insert(int key, int val) {
+		root = insert(root, key, val);
+		setColor(root, BLACK);
+	}
+
+	// insert the key-value pair in the subtree rooted at h
+	private int insert(int h, int key, int val) {
+		if (h == NIL) return newNode(key, val);
+
+		// newNode may replace the arrays, so the child link is stored
+		// only after the call (tree[h + LEFT] = insert(...) would write
+		// into the array read before it)
+		int x;
+		if      (key < tree[h]) { x = insert(tree[h + LEFT],  key, val); tree[h + LEFT]  = x; }
+		else if (key > tree[h]) { x = insert(tree[h + RIGHT], key, val); tree[h + RIGHT] = x; }
+		else                    vals[h >> 2] = val;
+
+		// fix-up any right-leaning links
+		if (isRed(tree[h + RIGHT]) && !isRed(tree[h + LEFT]))     h = rotateLeft(h);
+		if (isRed(tree[h + LEFT])  &&  isRed(tree[tree[h + LEFT] + LEFT])) h = rotateRight(h);
+		if (isRed(tree[h + LEFT])  &&  isRed(tree[h + RIGHT]))    flipColors(h);
+		setSize(h, size(tree[h + LEFT]) + size(tree[h + RIGHT]) + 1);
+
+		return h;
+	}
+
+	/*************************************************************************
+	 *  Red-black deletion
+	 *************************************************************************/
+
+	// delete the key-value pair with the minimum key
+	public void deleteMin() {
+		if (isEmpty()) throw new NoSuchElementException("BST underflow");
+
+		// if both children of root are black, set root to red
+		if (!isRed(tree[root + LEFT]) && !isRed(tree[root + RIGHT]))
+			setColor(root, RED);
+
+		root = deleteMin(root);
+		if (!isEmpty()) setColor(root, BLACK);
+	}
+
+	// delete the key-value pair with the minimum key rooted at h
+	private int deleteMin(int h) {
+		if (tree[h + LEFT] == NIL) {
+			freeNode(h);
+			return NIL;
+		}
+
+		if (!isRed(tree[h + LEFT]) && !isRed(tree[tree[h + LEFT] + LEFT]))
+			h = moveRedLeft(h);
+
+		tree[h + LEFT] = deleteMin(tree[h + LEFT]);
+		return balance(h);
+	}
+
+	// delete the key-value pair with the maximum key
+	public void deleteMax() {
+		if (isEmpty()) throw new NoSuchElementException("BST underflow");
+
+		// if both children of root are black, set root to red
+		if (!isRed(tree[root + LEFT]) && !isRed(tree[root + RIGHT]))
+			setColor(root, RED);
+
+		root = deleteMax(root);
+		if (!isEmpty()) setColor(root, BLACK);
+	}
+
+	// delete the key-value pair with the maximum key rooted at h
+	private int deleteMax(int h) {
+		if (isRed(tree[h + LEFT]))
+			h = rotateRight(h);
+
+		if (tree[h + RIGHT] == NIL) {
+			freeNode(h);
+			return NIL;
+		}
+
+		if (!isRed(tree[h + RIGHT]) && !isRed(tree[tree[h + RIGHT] + LEFT]))
+			h = moveRedRight(h);
+
+		tree[h + RIGHT] = deleteMax(tree[h + RIGHT]);
+
+		return balance(h);
+	}
+
+	// delete the key-value pair with the given key
+	public void delete(int key) {
+		if (!contains(key)) {
+			return;
+		}
+
+		// if both children of root are black, set root to red
+		if (!isRed(tree[root + LEFT]) && !isRed(tree[root + RIGHT]))
+			setColor(root, RED);
+
+		root = delete(root, key);
+		if (!isEmpty()) setColor(root, BLACK);
+	}
+
+	// delete the key-value pair with the given key rooted at h
+	private int delete(int h, int key) {
+		if (key < tree[h]) {
+			if (!isRed(tree[h + LEFT]) && !isRed(tree[tree[h + LEFT] + LEFT]))
+				h = moveRedLeft(h);
+			tree[h + LEFT] = delete(tree[h + LEFT], key);
+		}
+		else {
+			if (isRed(tree[h + LEFT]))
+				h = rotateRight(h);
+			if (key == tree[h] && tree[h + RIGHT] == NIL) {
+				freeNode(h);
+				return NIL;
+			}
+			if (!isRed(tree[h + RIGHT]) && !isRed(tree[tree[h + RIGHT] + LEFT]))
+				h = moveRedRight(h);
+			if (key == tree[h]) {
+				int x = min(tree[h + RIGHT]);
+				tree[h] = tree[x];
+				vals[h >> 2] = vals[x >> 2];
+				tree[h + RIGHT] = deleteMin(tree[h + RIGHT]);
+			}
+			else tree[h + RIGHT] = delete(tree[h + RIGHT], key);
+		}
+		return balance(h);
+	}
+
+	/*************************************************************************
+	 *  red-black tree helper functions
+	 *************************************************************************/
+
+	// make a left-leaning link lean to the right
+	private int rotateRight(int h) {
+		int x = tree[h + LEFT];
+		tree[h + LEFT] = tree[x + RIGHT];
+		tree[x + RIGHT] = h;
+		tree[x + META] = tree[h + META];              // x takes h's size and color
+		setColor(h, RED);
+		setSize(h, size(tree[h + LEFT]) + size(tree[h + RIGHT]) + 1);
+		return x;
+	}
+
+	// make a right-leaning link lean to the left
+	private int rotateLeft(int h) {
+		int x = tree[h + RIGHT];
+		tree[h + RIGHT] = tree[x + LEFT];
+		tree[x + LEFT] = h;
+		tree[x + META] = tree[h + META];              // x takes h's size and color
+		setColor(h, RED);
+		setSize(h, size(tree[h + LEFT]) + size(tree[h + RIGHT]) + 1);
+		return x;
+	}
+
+	// flip the colors of a node and its two children
+	private void flipColors(int h) {
+		tree[h + META] ^= RED;
+		tree[tree[h + LEFT] + META] ^= RED;
+		tree[tree[h + RIGHT] + META] ^= RED;
+	}
+
+	// Assuming that h is red and both tree[h + LEFT] and tree[tree[h + LEFT] + LEFT]
+	// are black, make tree[h + LEFT] or one of its children red.
+	private int moveRedLeft(int h) {
+		flipColors(h);
+		if (isRed(tree[tree[h + RIGHT] + LEFT])) {
+			tree[h + RIGHT] = rotateRight(tree[h + RIGHT]);
+			h = rotateLeft(h);
+		}
+		return h;
+	}
+
+	// Assuming that h is red and both tree[h + RIGHT] and tree[tree[h + RIGHT] + LEFT]
+	// are black, make tree[h + RIGHT] or one of its children red.
+	private int moveRedRight(int h) {
+		flipColors(h);
+		if (isRed(tree[tree[h + LEFT] + LEFT])) {
+			h = rotateRight(h);
+		}
+		return h;
+	}
+
+	// restore red-black tree invariant
+	private int balance(int h) {
+		if (isRed(tree[h + RIGHT]))                       h = rotateLeft(h);
+		if (isRed(tree[h + LEFT]) && isRed(tree[tree[h + LEFT] + LEFT])) h = rotateRight(h);
+		if (isRed(tree[h + LEFT]) && isRed(tree[h + RIGHT]))     flipColors(h);
+
+		setSize(h, size(tree[h + LEFT]) + size(tree[h + RIGHT]) + 1);
+		return h;
+	}
+
+	/*************************************************************************
+	 *  Utility functions
+	 *************************************************************************/
+
+	// height of tree (1-node tree has height 0)
+	public int height() { return height(root); }
+	private int height(int x) {
+		if (x == NIL) return -1;
+		return 1 + Math.max(height(tree[x + LEFT]), height(tree[x + RIGHT]));
+	}
+
+	/*************************************************************************
+	 *  Ordered symbol table methods.
+	 *************************************************************************/
+
+	// the smallest key; NO_VALUE if the tree is empty
+	public int min() {
+		if (isEmpty()) return NO_VALUE;
+		return tree[min(root)];
+	}
+
+	// the node with the smallest key in subtree rooted at x
+	private int min(int x) {
+		while (tree[x + LEFT] != NIL) x = tree[x + LEFT];
+		return x;
+	}
+
+	// the largest key; NO_VALUE if the tree is empty
+	public int max() {
+		if (isEmpty()) return NO_VALUE;
+		int x = root;
+		while (tree[x + RIGHT] != NIL) x = tree[x + RIGHT];
+		return tree[x];
+	}
+
+	// the largest key less than or equal to the given key; NO_VALUE if none
+	public int floor(int key) {
+		int x = root, best = NIL;
+		while (x != NIL) {
+			if (key == tree[x]) return key;
+			if (key < tree[x]) x = tree[x + LEFT];
+			else { best = x; x = tree[x + RIGHT]; }
+		}
+		return best == NIL ? NO_VALUE : tree[best];
+	}
+
+	// the smallest key greater than or equal to the given key; NO_VALUE if none
+	public int ceiling(int key) {
+		int x = root, best = NIL;
+		while (x != NIL) {
+			if (key == tree[x]) return key;
+			if (key > tree[x]) x = tree[x + RIGHT];
+			else { best = x; x = tree[x + LEFT]; }
+		}
+		return best == NIL ? NO_VALUE : tree[best];
+	}
+
+	// the key of rank k; NO_VALUE if k is out of range
+	public int getValByRank(int k) {
+		if (k < 0 || k >= size(root))
+			return NO_VALUE;
+		int x = root;
+		while (true) {
+			int count = size(tree[x + LEFT]);
+			if (count == k) return tree[x];
+			if (count > k) x = tree[x + LEFT];
+			else {
+				x = tree[x + RIGHT];
+				k = k - count - 1;
+			}
+		}
+	}
+
+	// number of keys less than key
+	public int rank(int key) {
+		int rank = 0;
+		int x = root;
+		while (x != NIL) {
+			if      (key < tree[x]) x = tree[x + LEFT];
+			else if (key > tree[x]) { rank += 1 + size(tree[x + LEFT]); x = tree[x + RIGHT]; }
+			else                    return rank + size(tree[x + LEFT]);
+		}
+		return rank;
+	}
+
+	/***********************************************************************
+	 *  Range count and range search.
+	 ***********************************************************************/
+
+	// all of the keys in ascending order
+	public int[] keys() {
+		int[] a = new int[size()];
+		keys(root, a, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		return a;
+	}
+
+	// the keys between lo and hi in ascending order
+	public int[] keys(int lo, int hi) {
+		int[] a = new int[rangeCount(lo, hi)];
+		keys(root, a, 0, lo, hi);
+		return a;
+	}
+
+	// add the keys between lo and hi in the subtree rooted at x to
+	// a[n..]; return the new n
+	private int keys(int x, int[] a, int n, int lo, int hi) {
+		if (x == NIL) return n;
+		if (lo < tree[x]) n = keys(tree[x + LEFT], a, n, lo, hi);
+		if (lo <= tree[x] && hi >= tree[x]) a[n++] = tree[x];
+		if (hi > tree[x]) n = keys(tree[x + RIGHT], a, n, lo, hi);
+		return n;
+	}
+
+	// number of keys between lo and hi
+	public int rangeCount(int lo, int hi) {
+		if (hi < lo) return 0;
+		return rank(hi) - rank(lo) + (contains(hi) ? 1 : 0);
+	}
+
+	// the k smallest keys in ascending order
+	public int[] kSmallest(int k) {
+		if (k < 0 || k > size(root)) return null;
+		int[] a = new int[k];
+		smallest(root, a, 0);
+		return a;
+	}
+
+	// in-order walk filling a[n..] until a is full; return the new n
+	private int smallest(int x, int[] a, int n) {
+		if (x == NIL || n == a.length) return n;
+		n = smallest(tree[x + LEFT], a, n);
+		if (n == a.length) return n;
+		a[n++] = tree[x];
+		return smallest(tree[x + RIGHT], a, n);
+	}
+
+	// the k largest keys in descending order
+	public int[] kLargest(int k) {
+		if (k < 0 || k > size(root)) return null;
+		int[] a = new int[k];
+		largest(root, a, 0);
+		return a;
+	}
+
+	// reverse in-order walk filling a[n..] until a is full; return the new n
+	private int largest(int x, int[] a, int n) {
+		if (x == NIL || n == a.length) return n;
+		n = largest(tree[x + RIGHT], a, n);
+		if (n == a.length) return n;
+		a[n++] = tree[x];
+		return largest(tree[x + LEFT], a, n);
+	}
+
+	/*************************************************************************
+	 *  Check integrity of red-black BST data structure
+	 *************************************************************************/
+	private boolean check() {
+		if (!isBST(root, Integer.MIN_VALUE, Integer.MAX_VALUE)) StdOut.println("Not in symmetric order");
+		if (!isSizeConsistent(root)) StdOut.println("Subtree counts not consistent");
+		if (!is23(root))             StdOut.println("Not a 2-3 tree");
+		if (!isBalanced())           StdOut.println("Not balanced");
+		return isBST(root, Integer.MIN_VALUE, Integer.MAX_VALUE) && isSizeConsistent(root) && is23(root) && isBalanced();
+	}
+
+	// are all keys of the subtree rooted at x in [min, max], in symmetric order?
+	private boolean isBST(int x, long min, long max) {
+		if (x == NIL) return true;
+		if (tree[x] < min || tree[x] > max) return false;
+		return isBST(tree[x + LEFT], min, tree[x] - 1L) && isBST(tree[x + RIGHT], tree[x] + 1L, max);
+	}
+
+	// are the size fields correct?
+	private boolean isSizeConsistent(int x) {
+		if (x == NIL) return true;
+		if (size(x) != size(tree[x + LEFT]) + size(tree[x + RIGHT]) + 1) return false;
+		return isSizeConsistent(tree[x + LEFT]) && isSizeConsistent(tree[x + RIGHT]);
+	}
+
+	// Does the tree have no red right links, and at most one (left)
+	// red links in a row on any path?
+	private boolean is23(int x) {
+		if (x == NIL) return true;
+		if (isRed(tree[x + RIGHT])) return false;
+		if (x != root && isRed(x) && isRed(tree[x + LEFT]))
+			return false;
+		return is23(tree[x + LEFT]) && is23(tree[x + RIGHT]);
+	}
+
+	// do all paths from root to leaf have same number of black edges?
+	private boolean isBalanced() {
+		int black = 0;     // number of black links on path from root to min
+		for (int x = root; x != NIL; x = tree[x + LEFT])
+			if (!isRed(x)) black++;
+		return isBalanced(root, black);
+	}
+
+	// does every path from the root to a leaf have the given number of black links?
+	private boolean isBalanced(int x, int black) {
+		if (x == NIL) return black == 0;
+		if (!isRed(x)) black--;
+		return isBalanced(tree[x + LEFT], black) && isBalanced(tree[x + RIGHT], black);
+	}
+}
@@ -0,0 +1,81 @@
+/*************************************************************************
+ *  Compilation:  javac IntScanKernels.java
+ *
+ *  Compare-and-count loops over an int[] used by the order queries of
+ *  IntIntLinearProbingHash.
+ *
+ *  The loops count every element of the range, with no branch on each
+ *  element, so the JIT (or the Vector API) can run them on SIMD
+ *  registers. Callers correct for the empty-slot sentinel afterwards.
+ *
+ *  best() returns VectorScanKernels when that class is on the class path
+ *  and the jdk.incubator.vector module is enabled, and the scalar loops
+ *  otherwise. -Dkernels=scalar forces the scalar loops. To build and run
+ *  with the vector kernels:
+ *
+ *  % javac --add-modules jdk.incubator.vector -cp bin -d bin src-vector/VectorScanKernels.java
+ *  % java --add-modules jdk.incubator.vector -cp bin TestEngine -I 1000000 2000000
+ *
+ *************************************************************************/
+
+abstract class IntScanKernels
+{
+	private static final IntScanKernels SCALAR = new Scalar();
+	private static final IntScanKernels BEST = load();
+
+	// number of elements of a[from..to) less than key
+	public abstract int countLess(int[] a, int from, int to, int key);
+
+	// number of elements of a[from..to) in [low, high]
+	public abstract int countBetween(int[] a, int from, int to, int low, int high);
+
+	public abstract String name();
+
+	public static IntScanKernels scalar()
+	{
+		return SCALAR;
+	}
+
+	public static IntScanKernels best()
+	{
+		return BEST;
+	}
+
+	private static IntScanKernels load()
+	{
+		if ("scalar".equals(System.getProperty("kernels"))) return SCALAR;
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) return SCALAR;
+		try
+		{
+			return (IntScanKernels) Class.forName("VectorScanKernels").getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e)
+		{
+			return SCALAR;
+		}
+	}
+
+	private static class Scalar extends IntScanKernels
+	{
+		public int countLess(int[] a, int from, int to, int key)
+		{
+			int count = 0;
+			for (int i = from; i < to; i++)
+				count += a[i] < key ? 1 : 0;
+			return count;
+		}
+
+		public int countBetween(int[] a, int from, int to, int low, int high)
+		{
+			int count = 0;
+			for (int i = from; i < to; i++)
+				count += (a[i] >= low & a[i] <= high) ? 1 : 0;
+			return count;
+		}
+
+		public String name()
+		{
+			return "scalar";
+		}
+	}
+}
@@ -12,13 +12,72 @@
  *
  *************************************************************************/
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.*;
 
 public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
-    private static final int INIT_CAPACITY = 22222223;
+    private static final int INIT_CAPACITY = 16;
+    private static final int REHASH_STEPS = 8;   // old slots migrated per operation while resizing
+    private static final int PARALLEL_THRESHOLD = 1 << 17;   // smaller tables are scanned sequentially
+    private static final double MAX_TOMBSTONE_RATIO = 0.25;  // share of slots that starts a compaction
+
+    // how a key's hashCode() is turned into its first slot
+    public enum Hashing {
+        MODULO,    // (hashCode & 0x7fffffff) % M, any table size (the original scheme)
+        MASK,      // strong bit mixer, then & (M - 1) on a power-of-two table
+        SEEDED     // like MASK, with a per-table random seed against adversarial keys
+    }
+
+    // how rank, rangeCount, getValByRank, kSmallest and kLargest are answered
+    public enum OrderMode {
+        SCAN,      // look at every slot (no extra memory, no write overhead)
+        INDEX,     // keep a RedBlackBST of the keys next to the table
+        SNAPSHOT,  // binary search a sorted copy of the keys plus a small delta of later writes
+        PARALLEL   // split the scan across the common ForkJoinPool (tables of PARALLEL_THRESHOLD+ slots)
+    }
+
+    // what delete does with the slot of the removed key
+    public enum Deletion {
+        BACKWARD_SHIFT, // empty it and move later cluster entries back (LINEAR probing only)
+        TOMBSTONE       // keep the key as a tombstone, O(1); compacted when there are too many
+    }
+
+    // which slot is tried next after a collision
+    public enum Probing {
+        LINEAR,    // i, i+1, i+2, ...
+        QUADRATIC, // i, i+1, i+3, i+6, ... (triangular; visits every slot of a power-of-two table)
+        DOUBLE     // i, i+s, i+2s, ... with an odd step s taken from the high hash bits
+    }
+
     private int N;           // number of key-value pairs in the symbol table
     private int M;           // size of linear probing table
     private Key[] keys;      // the keys
     private Value[] vals;    // the values
+    private long[] occupied; // bit i is set when slot i holds a live entry
+    private int dead;        // tombstones: deleted entries still holding a slot
+    private final int minCapacity;   // never shrink below the requested capacity
+    private final Hashing hashing;
+    private final Probing probing;
+    private final int seed;
+    private OrderMode orderMode = OrderMode.SCAN;
+    private Deletion deletion = Deletion.BACKWARD_SHIFT;
+    private RedBlackBST<Key, Boolean> index;   // the keys in sorted order, INDEX mode only
+    private SortedSnapshot<Key> snapshot;      // built by the first order query in SNAPSHOT mode
+    private Key[] gathered;  // live keys copied out for selection (SCAN mode), reused between calls
+    private int modCount;    // structural changes, so iterators can fail fast
+
+    // Incremental rehash: while a resize is in progress the previous table is
+    // kept in oldKeys/oldVals and drained into keys/vals a few slots per call.
+    // A migrated (or deleted) old entry keeps its key so probe chains in the old
+    // table stay intact; its value is cleared to mark it dead. The same marking
+    // is used for deletions in the current table in TOMBSTONE mode and when
+    // probing is not LINEAR, since backward-shift deletion only works for
+    // linear probe sequences. Compacting the tombstones away is a resize to
+    // the same capacity, so it is spread over later operations too.
+    private Key[] oldKeys;
+    private Value[] oldVals;
+    private int oldM;
+    private int rehashIndex; // old slots below this index have been migrated
     static double startTest, endTest;
     // create an empty hash table - use 16 as default size
     public LinearProbingHashST() {
@@ -27,9 +86,25 @@ public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
     
     // create linear proving hash table of given capacity
     public LinearProbingHashST(int capacity) {
+        this(capacity, Hashing.MODULO, Probing.LINEAR);
+    }
+    
+    // create a hash table of given capacity with the given hashing and probing
+    // strategies; MASK and SEEDED round the capacity up to a power of two,
+    // and QUADRATIC and DOUBLE probing need one of them
+    public LinearProbingHashST(int capacity, Hashing hashing, Probing probing) {
+        if (hashing == Hashing.MODULO && probing != Probing.LINEAR)
+            throw new IllegalArgumentException(probing + " probing needs a power-of-two table, use MASK or SEEDED hashing");
+        this.hashing = hashing;
+        this.probing = probing;
+        this.seed = hashing == Hashing.SEEDED ? new Random().nextInt() : 0;
+        if (hashing != Hashing.MODULO)
+            capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
         M = capacity;
+        minCapacity = capacity;
         keys = (Key[])   new Comparable[M];
         vals = (Value[]) new Object[M];
+        occupied = new long[(M + 63) >>> 6];
     }
     
     // return the number of key-value pairs in the symbol table
@@ -42,88 +117,445 @@ public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
         return size() == 0;
     }
     
+    // current number of slots (of the new table while a resize is in progress)
+    public int capacity() {
+        return M;
+    }
+    
+    // is an incremental resize still draining the previous table?
+    public boolean isRehashing() {
+        return oldKeys != null;
+    }
+    
     // does a key-value pair with the given key exist in the symbol table?
     public boolean contains(Key key) {
         return search(key) != null;
     }
     
-    // hash function for keys - returns value between 0 and M-1
-    private int hash(Key key) {
-        return (key.hashCode()  & 0x7fffffff ) % M;
+    // switch how the order queries are answered; INDEX builds the
+    // side index from the current keys and keeps it up to date afterwards
+    public void setOrderMode(OrderMode mode) {
+        orderMode = mode;
+        index = null;
+        snapshot = null;
+        if (mode == OrderMode.INDEX) {
+            index = new RedBlackBST<Key, Boolean>();
+            for (Key key : keys()) index.insert(key, Boolean.TRUE);
+        }
     }
     
+    public OrderMode orderMode() {
+        return orderMode;
+    }
+    
+    // switch what delete does; going back to BACKWARD_SHIFT first compacts
+    // the tombstones away, since the shift cannot move them. QUADRATIC and
+    // DOUBLE probing always use tombstones
+    public void setDeletion(Deletion mode) {
+        if (mode == Deletion.BACKWARD_SHIFT && probing == Probing.LINEAR && dead > 0) {
+            resize(M);
+            completeRehash();
+        }
+        deletion = mode;
+    }
+    
+    public Deletion deletion() {
+        return probing == Probing.LINEAR ? deletion : Deletion.TOMBSTONE;
+    }
+    
+    // number of tombstones in the current table
+    public int tombstones() {
+        return dead;
+    }
+    
+    // share of the current table's slots that hold tombstones
+    public double tombstoneRatio() {
+        return (double) dead / M;
+    }
+    
+    // keep the order structures in step with a key that was just added
+    private void keyAdded(Key key) {
+        if (index != null) index.insert(key, Boolean.TRUE);
+        if (snapshot != null) snapshot.add(key);
+    }
+    
+    // keep the order structures in step with a key that was just removed
+    private void keyRemoved(Key key) {
+        if (index != null) index.delete(key);
+        if (snapshot != null) snapshot.remove(key);
+    }
+    
+    // the snapshot of the current keys, sorting them if there is none yet
+    private SortedSnapshot<Key> snapshot() {
+        if (snapshot == null) {
+            completeRehash();
+            Key[] sorted = (Key[]) new Comparable[Math.max(1, N)];
+            int n = 0;
+            for (int i = nextLive(0); i < M; i = nextLive(i + 1))
+                sorted[n++] = keys[i];
+            snapshot = new SortedSnapshot<Key>(sorted, n);
+        }
+        return snapshot;
+    }
+    
+    // should this order query run on the fork/join pool?
+    private boolean parallel() {
+        if (orderMode != OrderMode.PARALLEL || M < PARALLEL_THRESHOLD) return false;
+        completeRehash();
+        return true;
+    }
+    
+    /*************************************************************************
+     *  Hashing and probing
+     *************************************************************************/
+    
+    // hash code of the key, scrambled unless hashing is MODULO
+    private int mix(Key key) {
+        int h = key.hashCode();
+        if (hashing == Hashing.MODULO) return h;
+        // MurmurHash3 finalizer
+        h ^= seed;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    // first slot for mixed hash h - returns value between 0 and m-1
+    private int hash(int h, int m) {
+        if (hashing == Hashing.MODULO) return (h & 0x7fffffff) % m;
+        return h & (m - 1);
+    }
+    
+    // distance from the first slot to the second one
+    private int step(int h, int m) {
+        if (probing != Probing.DOUBLE) return 1;
+        return (Integer.rotateLeft(h, 16) | 1) & (m - 1);
+    }
+    
+    // All probe loops advance with i += step (wrapping with one subtraction,
+    // since step < m) and grow step by one per probe for QUADRATIC, so no
+    // probe step does an integer division.
+    
+    /*************************************************************************
+     *  Incremental resizing
+     *************************************************************************/
+    
+    // start moving every entry into a fresh table of the given capacity;
+    // the copy itself is spread over the following operations
+    private void resize(int capacity) {
+        if (oldKeys != null) completeRehash();
+        oldKeys = keys;
+        oldVals = vals;
+        oldM = M;
+        rehashIndex = 0;
+        M = capacity;
+        keys = (Key[])   new Comparable[M];
+        vals = (Value[]) new Object[M];
+        occupied = new long[(M + 63) >>> 6];
+        dead = 0;
+        modCount++;
+    }
+    
+    // migrate up to REHASH_STEPS slots of the old table
+    private void rehashStep() {
+        if (oldKeys == null) return;
+        int end = Math.min(rehashIndex + REHASH_STEPS, oldM);
+        for (; rehashIndex < end; rehashIndex++) {
+            if (oldVals[rehashIndex] != null) {
+                put(oldKeys[rehashIndex], oldVals[rehashIndex]);
+                oldVals[rehashIndex] = null;
+            }
+        }
+        if (rehashIndex == oldM) {
+            oldKeys = null;
+            oldVals = null;
+        }
+    }
+    
+    // finish any pending migration at once; used by operations that
+    // have to look at every slot anyway
+    private void completeRehash() {
+        while (oldKeys != null) rehashStep();
+    }
+    
+    // slot of a live key in the old table, -1 if it is not there
+    private int oldSlot(Key key) {
+        int h = mix(key);
+        int step = step(h, oldM);
+        for (int i = hash(h, oldM); oldKeys[i] != null; ) {
+            if (oldKeys[i].equals(key))
+                return oldVals[i] != null ? i : -1;
+            i += step;
+            if (i >= oldM) i -= oldM;
+            if (probing == Probing.QUADRATIC) step++;
+        }
+        return -1;
+    }
+    
+    // slot of a live key in the current table, -1 if it is not there
+    private int slot(Key key) {
+        int h = mix(key);
+        int step = step(h, M);
+        for (int i = hash(h, M); keys[i] != null; ) {
+            if (vals[i] != null && keys[i].equals(key))
+                return i;
+            i += step;
+            if (i >= M) i -= M;
+            if (probing == Probing.QUADRATIC) step++;
+        }
+        return -1;
+    }
+    
+    // place a key that is known to be absent into the current table,
+    // reusing the first dead slot on its probe sequence
+    private void put(Key key, Value val) {
+        int h = mix(key);
+        int step = step(h, M);
+        int i = hash(h, M);
+        while (vals[i] != null) {
+            i += step;
+            if (i >= M) i -= M;
+            if (probing == Probing.QUADRATIC) step++;
+        }
+        if (keys[i] != null) dead--;
+        keys[i] = key;
+        vals[i] = val;
+        occupied[i >>> 6] |= 1L << i;
+    }
+    
+    /*************************************************************************
+     *  Symbol table operations
+     *************************************************************************/
+    
     // insert the key-value pair into the symbol table
     public void insert(Key key, Value val) {
         if (val == null) {
             delete(key);
             return;
         }
+        rehashStep();
         
-        // double table size if 50% full
-        
-        int i;
-        for (i = hash(key); keys[i] != null; i = (i + 1) % M) {
-            if (keys[i].equals(key)) { vals[i] = val; return; }
+        int i = slot(key);
+        if (i >= 0) { vals[i] = val; return; }
+        if (oldKeys != null) {
+            int j = oldSlot(key);
+            if (j >= 0) {
+                oldVals[j] = null;
+                put(key, val);
+                return;
+            }
         }
-        keys[i] = key;
-        vals[i] = val;
+        
+        // double table size if 50% full, counting dead slots; if most of
+        // them are dead, rebuild at the same size instead
+        if (2 * (N + dead + 1) > M) resize(4 * (N + 1) > M ? 2 * M : M);
+        
+        put(key, val);
         N++;
+        modCount++;
+        keyAdded(key);
     }
     
     // return the value associated with the given key, null if no such value
     public Value search(Key key) {
-        for (int i = hash(key); keys[i] != null; i = (i + 1) % M)
-            if (keys[i].equals(key))
-                return vals[i];
+        rehashStep();
+        int i = slot(key);
+        if (i >= 0) return vals[i];
+        if (oldKeys != null) {
+            int j = oldSlot(key);
+            if (j >= 0) return oldVals[j];
+        }
         return null;
     }
     
     // delete the key (and associated value) from the symbol table
     public void delete(Key key) {
-        if (!contains(key)) return;
+        rehashStep();
         
         // find position i of key
-        int i = hash(key);
-        while (!key.equals(keys[i])) {
-            i = (i + 1) % M;
+        int i = slot(key);
+        if (i < 0) {
+            if (oldKeys == null) return;
+            int j = oldSlot(key);
+            if (j < 0) return;
+            oldVals[j] = null;
+            N--;
+            modCount++;
+            keyRemoved(key);
+            return;
         }
         
-        // delete key and associated value
+        if (deletion() == Deletion.BACKWARD_SHIFT) removeSlot(i);
+        else {
+            // other keys may have probed past this slot: keep the key, drop the value
+            vals[i] = null;
+            occupied[i >>> 6] &= ~(1L << i);
+            dead++;
+        }
+        N--;
+        modCount++;
+        keyRemoved(key);
+        
+        // halve table size if it is 12.5% full; otherwise compact if too
+        // many slots are tombstones
+        if (oldKeys == null && M / 2 >= minCapacity && 8 * N <= M) resize(M / 2);
+        else if (oldKeys == null && dead > MAX_TOMBSTONE_RATIO * M) resize(M);
+    }
+    
+    // Backward-shift deletion: empty slot i, then walk the rest of its cluster
+    // once and pull back every entry whose home slot is not cyclically in
+    // (i, j], i.e. an entry that could no longer be reached across the hole.
+    // Entries that are still reachable stay where they are.
+    private void removeSlot(int i) {
+        for (int j = i + 1 == M ? 0 : i + 1; keys[j] != null; j = j + 1 == M ? 0 : j + 1) {
+            int h = hash(mix(keys[j]), M);
+            if (i <= j ? (i < h && h <= j) : (i < h || h <= j)) continue;
+            keys[i] = keys[j];
+            vals[i] = vals[j];
+            occupied[i >>> 6] |= 1L << i;
+            i = j;
+        }
         keys[i] = null;
         vals[i] = null;
+        occupied[i >>> 6] &= ~(1L << i);
+    }
+    
+    // first slot at or after i that holds a live entry, M if there is none;
+    // skips 64 empty slots per bitmap word instead of loading each key
+    private int nextLive(int i) {
+        int w = i >>> 6;
+        if (w >= occupied.length) return M;
+        long word = occupied[w] & (-1L << i);
+        while (word == 0) {
+            if (++w == occupied.length) return M;
+            word = occupied[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+    
+    // number of live slots in [lo, hi), counted on the bitmap
+    private int liveCount(int lo, int hi) {
+        if (lo >= hi) return 0;
+        int w = lo >>> 6, last = (hi - 1) >>> 6;
+        long first = -1L << lo, end = -1L >>> (63 - ((hi - 1) & 63));
+        if (w == last) return Long.bitCount(occupied[w] & first & end);
+        int count = Long.bitCount(occupied[w] & first);
+        for (w++; w < last; w++) count += Long.bitCount(occupied[w]);
+        return count + Long.bitCount(occupied[last] & end);
+    }
+    
+    // return all of the keys as in Iterable; the keys are read from the
+    // slots as the iteration goes, nothing is copied. Changing the table
+    // during the iteration makes it throw ConcurrentModificationException
+    public Iterable<Key> keys() {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() { return new KeyIterator(); }
+            public Spliterator<Key> spliterator() { return LinearProbingHashST.this.spliterator(); }
+        };
+    }
+    
+    // the keys split by slot range, with exact sizes for every part
+    public Spliterator<Key> spliterator() {
+        completeRehash();
+        return new KeySpliterator(0, M, N, modCount);
+    }
+    
+    // the keys as a stream; stream().parallel() scans slot ranges in parallel
+    public Stream<Key> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    // walks the occupancy bitmap from one live slot to the next
+    private class KeyIterator implements Iterator<Key> {
+        private final int expected;
+        private int i;
         
-        // rehash all keys in same cluster
-        i = (i + 1) % M;
-        while (keys[i] != null) {
-            // delete keys[i] an vals[i] and reinsert
-            Key   keyToRehash = keys[i];
-            Value valToRehash = vals[i];
-            keys[i] = null;
-            vals[i] = null;
-            N--;
-            insert(keyToRehash, valToRehash);
-            i = (i + 1) % M;
+        KeyIterator() {
+            completeRehash();
+            expected = modCount;
+            i = nextLive(0);
         }
         
-        N--;
+        public boolean hasNext() {
+            return i < M;
+        }
         
-
+        public Key next() {
+            if (modCount != expected) throw new ConcurrentModificationException();
+            if (i >= M) throw new NoSuchElementException();
+            Key key = keys[i];
+            i = nextLive(i + 1);
+            return key;
+        }
     }
     
-    // return all of the keys as in Iterable
-    public Iterable<Key> keys() {
-        Queue<Key> queue = new Queue<Key>();
-        for (int i = 0; i < M; i++)
-            if (keys[i] != null) queue.enqueue(keys[i]);
-        return queue;
+    // the live keys of slots [lo, hi); splits in half on a bitmap word
+    // boundary and counts the keys of each half with bitCount
+    private class KeySpliterator implements Spliterator<Key> {
+        private static final int MIN_SPLIT = 1024;   // slots not split any further
+        private final int expected;
+        private int lo;
+        private final int hi;
+        private int size;    // live keys left in [lo, hi)
+        
+        KeySpliterator(int lo, int hi, int size, int expected) {
+            this.lo = lo;
+            this.hi = hi;
+            this.size = size;
+            this.expected = expected;
+        }
+        
+        public boolean tryAdvance(Consumer<? super Key> action) {
+            if (modCount != expected) throw new ConcurrentModificationException();
+            int i = nextLive(lo);
+            if (i >= hi) { lo = hi; return false; }
+            lo = i + 1;
+            size--;
+            action.accept(keys[i]);
+            return true;
+        }
+        
+        public void forEachRemaining(Consumer<? super Key> action) {
+            for (int i = nextLive(lo); i < hi; i = nextLive(i + 1))
+                action.accept(keys[i]);
+            lo = hi;
+            size = 0;
+            if (modCount != expected) throw new ConcurrentModificationException();
+        }
+        
+        public Spliterator<Key> trySplit() {
+            int mid = ((lo + hi) >>> 1) & ~63;
+            if (hi - lo < MIN_SPLIT || mid <= lo) return null;
+            int n = liveCount(lo, mid);
+            KeySpliterator prefix = new KeySpliterator(lo, mid, n, expected);
+            lo = mid;
+            size -= n;
+            return prefix;
+        }
+        
+        public long estimateSize() {
+            return size;
+        }
+        
+        public int characteristics() {
+            return SIZED | SUBSIZED | DISTINCT | NONNULL;
+        }
     }
     
     public int rank(Key key){
+    	if (orderMode == OrderMode.INDEX)
+    		return index.rank(key);
+    	if (orderMode == OrderMode.SNAPSHOT)
+    		return snapshot().countBelow(key, false);
+    	if (parallel())
+    		return ParallelScans.count(keys, occupied, M, null, key, false);
+    	completeRehash();
     	int rank = 0;
-    	for (int i = 0; i < M; i++)
+    	for (int i = nextLive(0); i < M; i = nextLive(i + 1))
     	{
-    		if (keys[i] == null)
-    			continue;
     		if (key.compareTo(keys[i]) > 0)
     			rank++;
     	}
@@ -132,66 +564,119 @@ public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
     
     public Key getValByRank(int k){
     	
-    	if (k > N || k < 0)
+    	if (k > N || k < 0 || N == 0)
     		return null;
-    	MaxHeap<Key> heap = new MaxHeap<Key>(k+1);
-    	int index = 0;
-    	int keyCount = 0;
-    	while (keyCount <= k && index < M)
+    	// k == N answers the largest key, as the heap of k+1 keys always did
+    	int r = Math.min(k, N - 1);
+    	if (orderMode == OrderMode.INDEX)
+    		return index.getValByRank(r);
+    	if (orderMode == OrderMode.SNAPSHOT)
+    		return snapshot().select(r);
+    	if (parallel())
+    		return ParallelScans.select(keys, occupied, M, r);
+    	completeRehash();
+    	if (Selection.useSelection(Math.min(r + 1, N - r), N))
     	{
-    		if (keys[index] != null)
-    		{
-    			heap.insert(keys[index]);
-    			keyCount++;
-    		}
-    		index++;
+    		int n = gather();
+    		Selection.select(gathered, 0, n, r);
+    		Key key = gathered[r];
+    		Arrays.fill(gathered, 0, n, null);
+    		return key;
     	}
-    	Key max = heap.returnMax();
-    	while (index < M)
+    	// otherwise a heap from whichever end is closer
+    	if (r + 1 > N - r)
     	{
-    		if (keys[index] != null)
+    		MinHeap<Key> heap = new MinHeap<Key>(N - r);
+    		for (int i = nextLive(0); i < M; i = nextLive(i + 1))
     		{
-    			if (max.compareTo(keys[index]) > 0)
+    			if (heap.size() < N - r)
+    				heap.insert(keys[i]);
+    			else if (heap.returnMin().compareTo(keys[i]) < 0)
     			{
-    				heap.delMax();
-    				heap.insert(keys[index]);
+    				heap.delMin();
+    				heap.insert(keys[i]);
     			}
-    			
     		}
-    		index++;
+    		return heap.returnMin();
+    	}
+    	MaxHeap<Key> heap = new MaxHeap<Key>(r+1);
+    	for (int i = nextLive(0); i < M; i = nextLive(i + 1))
+    	{
+    		if (heap.size() <= r)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
+    		{
+    			heap.delMax();
+    			heap.insert(keys[i]);
+    		}
     	}
     	return heap.returnMax();
     }
     
+    // copy the live keys into the reusable gather buffer, return how many
+    private int gather() {
+        if (gathered == null || gathered.length < N)
+            gathered = (Key[]) new Comparable[Math.max(N, 2 * (gathered == null ? 0 : gathered.length))];
+        int n = 0;
+        for (int i = nextLive(0); i < M; i = nextLive(i + 1))
+            gathered[n++] = keys[i];
+        return n;
+    }
+    
+    // the k keys of an ordered walk, queued in the opposite order
+    private Queue<Key> reversed(Iterable<Key> ordered, int k) {
+        Key[] buf = (Key[]) new Comparable[k];
+        int n = 0;
+        for (Key key : ordered)
+            buf[n++] = key;
+        Queue<Key> queue = new Queue<Key>();
+        while (n > 0)
+            queue.enqueue(buf[--n]);
+        return queue;
+    }
+    
     public Iterable<Key> kSmallest(int k){
     	if (k < 0 || k > N)
     		return null;
-        /* TODO: Implement kSmallest here... */
     	Queue<Key> kSmallestKeys = new Queue<Key>();
-    	MaxHeap<Key> heap = new MaxHeap<Key>(k);
-    	int index = 0;
-    	int keyCount = 0;
-    	while (keyCount < k && index < M)
+    	if (k == 0)
+    		return kSmallestKeys;
+    	// the index and snapshot walk up from the smallest key; SCAN answers largest first
+    	if (orderMode == OrderMode.INDEX)
+    		return reversed(index.kSmallest(k), k);
+    	if (orderMode == OrderMode.SNAPSHOT)
+    		return reversed(snapshot().kSmallest(k), k);
+    	if (parallel())
     	{
-    		if (keys[index] != null)
-    		{
-    			heap.insert(keys[index]);
-    			keyCount++;
-    		}
-    		index++;
+    		// topK sorts ascending; SCAN answers largest first
+    		Key[] top = ParallelScans.topK(keys, occupied, M, k, false);
+    		for (int i = k - 1; i >= 0; i--)
+    			kSmallestKeys.enqueue(top[i]);
+    		return kSmallestKeys;
+    	}
+    	completeRehash();
+        /* TODO: Implement kSmallest here... */
+    	if (Selection.useSelection(k, N))
+    	{
+    		// same order as the heap below: largest of the k first
+    		int n = gather();
+    		Selection.select(gathered, 0, n, k - 1);
+    		Arrays.sort(gathered, 0, k);
+    		for (int i = k - 1; i >= 0; i--)
+    			kSmallestKeys.enqueue(gathered[i]);
+    		Arrays.fill(gathered, 0, n, null);
+    		return kSmallestKeys;
     	}
-    	Key max = heap.returnMax();
-    	while (index < M)
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k);
+    	for (int i = nextLive(0); i < M; i = nextLive(i + 1))
     	{
-    		if (keys[index] != null)
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
     		{
-    			if (max.compareTo(keys[index]) > 0)
-    			{
-    				heap.delMax();
-    				heap.insert(keys[index]);
-    			}
+    			heap.delMax();
+    			heap.insert(keys[i]);
     		}
-    		index++;
     	}
     	for (int i = 0; i < k; i++)
     	{
@@ -204,32 +689,45 @@ public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
     public Iterable<Key> kLargest(int k){
     	if (k < 0 || k > N)
     		return null;
-        /* TODO: Implement kLargest here... */
     	Queue<Key> kLargestKeys = new Queue<Key>();
-    	MinHeap<Key> heap = new MinHeap<Key>(k);
-    	int index = 0;
-    	int keyCount = 0;
-    	while (keyCount < k && index < M)
+    	if (k == 0)
+    		return kLargestKeys;
+    	// the index and snapshot walk down from the largest key; SCAN answers smallest first
+    	if (orderMode == OrderMode.INDEX)
+    		return reversed(index.kLargest(k), k);
+    	if (orderMode == OrderMode.SNAPSHOT)
+    		return reversed(snapshot().kLargest(k), k);
+    	if (parallel())
     	{
-    		if (keys[index] != null)
-    		{
-    			heap.insert(keys[index]);
-    			keyCount++;
-    		}
-    		index++;
+    		// topK sorts descending; SCAN answers smallest first
+    		Key[] top = ParallelScans.topK(keys, occupied, M, k, true);
+    		for (int i = k - 1; i >= 0; i--)
+    			kLargestKeys.enqueue(top[i]);
+    		return kLargestKeys;
     	}
-    	Key min = heap.returnMin();
-    	while (index < M)
+    	completeRehash();
+        /* TODO: Implement kLargest here... */
+    	if (Selection.useSelection(k, N))
     	{
-    		if (keys[index] != null)
+    		// same order as the heap below: smallest of the k first
+    		int n = gather();
+    		Selection.select(gathered, 0, n, n - k);
+    		Arrays.sort(gathered, n - k, n);
+    		for (int i = n - k; i < n; i++)
+    			kLargestKeys.enqueue(gathered[i]);
+    		Arrays.fill(gathered, 0, n, null);
+    		return kLargestKeys;
+    	}
+    	MinHeap<Key> heap = new MinHeap<Key>(k);
+    	for (int i = nextLive(0); i < M; i = nextLive(i + 1))
+    	{
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMin().compareTo(keys[i]) < 0)
     		{
-    			if (min.compareTo(keys[index]) < 0)
-    			{
-    				heap.delMin();
-    				heap.insert(keys[index]);
-    			}
+    			heap.delMin();
+    			heap.insert(keys[i]);
     		}
-    		index++;
     	}
     	for (int i = 0; i < k; i++)
     	{
@@ -243,11 +741,16 @@ public class LinearProbingHashST<Key extends Comparable<Key>, Value>{
         /* TODO: Implement rangeCount here... */
     	if (high.compareTo(low) < 0)
     		return 0;
+    	if (orderMode == OrderMode.INDEX)
+    		return index.rank(high) - index.rank(low) + (index.contains(high) ? 1 : 0);
+    	if (orderMode == OrderMode.SNAPSHOT)
+    		return snapshot().countBelow(high, true) - snapshot().countBelow(low, false);
+    	if (parallel())
+    		return ParallelScans.count(keys, occupied, M, low, high, true);
+    	completeRehash();
     	int count = 0;
-    	for (int i = 0; i < M; i++)
+    	for (int i = nextLive(0); i < M; i = nextLive(i + 1))
     	{
-    		if (keys[i] == null)
-    			continue;
     		int cmp1 = low.compareTo(keys[i]);
     		int cmp2 = high.compareTo(keys[i]);
     		if (cmp1 <= 0 && cmp2 >= 0)
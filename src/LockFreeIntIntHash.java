@@ -0,0 +1,434 @@
+/*************************************************************************
+ *  Compilation:  javac LockFreeIntIntHash.java
+ *
+ *  Lock-free open-addressing hash table for int keys and int values.
+ *
+ *  Slots live in two arrays updated only by compare-and-set (VarHandles):
+ *
+ *    keys[i]   0 while free; a key is claimed once and never removed
+ *              from its slot, so probe sequences never break
+ *    vals[i]   a long holding the value in its low 32 bits and a state
+ *              above them: EMPTY (never written), LIVE, TOMB (deleted),
+ *              plus a FROZEN flag set when a resize has taken the slot
+ *
+ *  search never writes and never waits. It probes at most M slots per
+ *  table, and moves to the next table only for a slot that a resize has
+ *  frozen, keeping the frozen value unless the next table has a newer
+ *  one for the key. insert and delete retry their CAS on contention. delete leaves
+ *  a tombstone that the next resize drops. The key 0 is kept in its own
+ *  word. An insert of NO_VALUE is a delete.
+ *
+ *  Resizing is cooperative. A full table gets a successor table. Then
+ *  every writer copies a chunk of slots before its own operation: it
+ *  freezes each slot and copies the slot if it is live. Writers that
+ *  meet a frozen slot copy it themselves and continue in the successor.
+ *  A copy never overwrites what a newer write put in the successor. Any
+ *  thread can finish the whole copy itself, so a stalled thread never
+ *  blocks the others. Once every slot is copied the successor replaces
+ *  the table.
+ *
+ *  Weak consistency: size, rank, rangeCount, getValByRank, kSmallest and
+ *  kLargest do not stop concurrent writers. A key that is present for the
+ *  whole query is always counted, and a key that is absent for the whole
+ *  query never is. A key inserted or deleted during the query may or may
+ *  not be counted. So results can disagree with each other, or with
+ *  size(), while writes are running.
+ *
+ *************************************************************************/
+import java.lang.invoke.*;
+import java.util.concurrent.atomic.*;
+
+public class LockFreeIntIntHash {
+    public static final int NO_VALUE = Integer.MIN_VALUE;   // returned for absent keys
+    private static final int INIT_CAPACITY = 16;
+    private static final int COPY_CHUNK = 1024;             // slots copied per help step
+
+    private static final long EMPTY  = 0L;
+    private static final long LIVE   = 1L << 32;
+    private static final long TOMB   = 2L << 32;
+    private static final long STATE  = 3L << 32;
+    private static final long FROZEN = 4L << 32;
+    private static final long VALUE  = 0xffffffffL;
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle VALS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // one generation of the slot arrays
+    private static final class Table {
+        final int[] keys;
+        final long[] vals;
+        final int M;                  // number of slots, a power of two
+        final int mask;               // M - 1
+        final AtomicInteger used = new AtomicInteger();        // slots with a key
+        final AtomicReference<Table> next = new AtomicReference<Table>();
+        final AtomicInteger copyIndex = new AtomicInteger();   // next chunk to hand out
+        final AtomicInteger copied = new AtomicInteger();      // slots copied by chunk
+
+        Table(int M) {
+            this.M = M;
+            this.mask = M - 1;
+            keys = new int[M];
+            vals = new long[M];
+        }
+    }
+
+    private final AtomicReference<Table> root;
+    private final AtomicLong zero = new AtomicLong(EMPTY);   // value word of the key 0
+    private final LongAdder size = new LongAdder();
+
+    // create an empty hash table - use 16 as default size
+    public LockFreeIntIntHash() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a hash table with at least the given number of slots
+    public LockFreeIntIntHash(int capacity) {
+        int M = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        root = new AtomicReference<Table>(new Table(M));
+    }
+
+    // number of key-value pairs; weakly consistent
+    public int size() {
+        return (int) size.sum();
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // current number of slots
+    public int capacity() {
+        return root.get().M;
+    }
+
+    // hash function for keys - returns value between 0 and mask
+    private static int hash(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int key(Table t, int i) {
+        return (int) KEYS.getVolatile(t.keys, i);
+    }
+
+    private static long val(Table t, int i) {
+        return (long) VALS.getVolatile(t.vals, i);
+    }
+
+    /*************************************************************************
+     *  Symbol table methods
+     *************************************************************************/
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(int key) {
+        return search(key) != NO_VALUE;
+    }
+
+    // return the value associated with the given key, NO_VALUE if no such value
+    public int search(int key) {
+        if (key == 0) {
+            long w = zero.get();
+            return (w & STATE) == LIVE ? (int) w : NO_VALUE;
+        }
+        long w = find(root.get(), key);
+        return (w & STATE) == LIVE ? (int) w : NO_VALUE;
+    }
+
+    // the value word of the key (EMPTY if it was never written), read
+    // without writing anything. A frozen slot holds the current word until
+    // the successor has one for the key, because every writer copies the
+    // slot before it writes to the successor
+    private static long find(Table t, int key) {
+        long found = EMPTY;
+        next:
+        while (t != null) {
+            int i = hash(key, t.mask);
+            for (int p = 0; p < t.M; p++, i = (i + 1) & t.mask) {
+                int k = key(t, i);
+                if (k == key) {
+                    long w = val(t, i);
+                    if ((w & STATE) != EMPTY) found = w & ~FROZEN;
+                    if ((w & FROZEN) == 0) return found;
+                    t = t.next.get();
+                    continue next;
+                }
+                if (k == 0) {
+                    // a frozen free slot: the key may have been inserted in the successor
+                    if ((val(t, i) & FROZEN) == 0) return found;
+                    t = t.next.get();
+                    continue next;
+                }
+            }
+            t = t.next.get();
+        }
+        return found;
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(int key, int val) {
+        if (val == NO_VALUE) {
+            delete(key);
+            return;
+        }
+        if (key == 0) setZero(LIVE | (val & VALUE));
+        else write(key, LIVE | (val & VALUE));
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(int key) {
+        if (key == 0) setZero(TOMB);
+        else write(key, TOMB);
+    }
+
+    private void setZero(long word) {
+        long w = zero.getAndSet(word);
+        size.add(((word & STATE) == LIVE ? 1 : 0) - ((w & STATE) == LIVE ? 1 : 0));
+    }
+
+    // store word (LIVE | value, or TOMB) for the key, starting at the root
+    private void write(int key, long word) {
+        Table t = root.get();
+        if (t.next.get() != null) helpCopy(t, false);
+        while (true) {
+            int r = store(t, key, word, false);
+            if (r == DONE) return;
+            if (r == FULL) t = grow(t);
+            else           t = t.next.get();
+        }
+    }
+
+    private static final int DONE = 0;    // stored (or a copy was not needed)
+    private static final int MOVED = 1;   // the slot is frozen; go on in the successor
+    private static final int FULL = 2;    // no room in this table
+
+    // store word for the key in table t. A copy only fills a slot that
+    // has never been written, and is dropped if the slot is frozen,
+    // because then the successor already got the newer state
+    private int store(Table t, int key, long word, boolean copy) {
+        int i = hash(key, t.mask);
+        for (int p = 0; p < t.M; p++, i = (i + 1) & t.mask) {
+            int k = key(t, i);
+            boolean claimed = false;
+            if (k == 0) {
+                if ((val(t, i) & FROZEN) != 0) return copy ? DONE : MOVED;
+                if (word == TOMB) return DONE;   // deleting an absent key
+                if (KEYS.compareAndSet(t.keys, i, 0, key)) {
+                    claimed = true;
+                    k = key;
+                }
+                else k = key(t, i);
+            }
+            if (k != key) continue;
+
+            while (true) {
+                long w = val(t, i);
+                if ((w & FROZEN) != 0) {
+                    if (copy) return DONE;
+                    copySlot(t, i);
+                    return MOVED;
+                }
+                if (copy && w != EMPTY) return DONE;     // a newer write got here first
+                if (VALS.compareAndSet(t.vals, i, w, word)) {
+                    if (!copy) size.add(((word & STATE) == LIVE ? 1 : 0) - ((w & STATE) == LIVE ? 1 : 0));
+                    break;
+                }
+            }
+            if (claimed && 2 * t.used.incrementAndGet() > t.M && !copy) grow(t);
+            return DONE;
+        }
+        if (copy) throw new IllegalStateException("no room to copy key " + key);
+        return FULL;
+    }
+
+    /*************************************************************************
+     *  Cooperative resize
+     *************************************************************************/
+
+    // make sure t has a successor and help copy into it; if t is not the
+    // root it is itself a successor, so finish the root's copy first
+    private Table grow(Table t) {
+        Table r = root.get();
+        if (r != t) {
+            finishCopy(r);
+            return root.get();
+        }
+        if (t.next.get() == null) {
+            // double when more than a quarter is live, else same size to drop tombstones
+            int M = 4 * size.sum() > t.M ? 2 * t.M : t.M;
+            t.next.compareAndSet(null, new Table(M));
+        }
+        helpCopy(t, true);
+        return t.next.get();
+    }
+
+    // copy chunks of t handed out in order: all that are left, or just one
+    private void helpCopy(Table t, boolean all) {
+        int start;
+        while ((start = t.copyIndex.getAndAdd(COPY_CHUNK)) < t.M) {
+            int end = Math.min(t.M, start + COPY_CHUNK);
+            for (int i = start; i < end; i++) copySlot(t, i);
+            if (t.copied.addAndGet(end - start) == t.M) root.compareAndSet(t, t.next.get());
+            if (!all) return;
+        }
+    }
+
+    // copy every slot of t, whoever holds its chunks, then promote the successor
+    private void finishCopy(Table t) {
+        if (t.next.get() == null) return;
+        for (int i = 0; i < t.M; i++) copySlot(t, i);
+        root.compareAndSet(t, t.next.get());
+    }
+
+    // freeze slot i of t and copy its entry to the successor if it is live
+    private void copySlot(Table t, int i) {
+        long w;
+        do {
+            w = val(t, i);
+        } while ((w & FROZEN) == 0 && !VALS.compareAndSet(t.vals, i, w, w | FROZEN));
+        int k = key(t, i);
+        if (k != 0 && (w & STATE) == LIVE)
+            store(t.next.get(), k, LIVE | (w & VALUE), true);
+    }
+
+    // the root once no copy is in progress, finishing any that is
+    private Table settled() {
+        Table t = root.get();
+        while (t.next.get() != null) {
+            finishCopy(t);
+            t = root.get();
+        }
+        return t;
+    }
+
+    /*************************************************************************
+     *  Order queries - weakly consistent scans of the settled table
+     *************************************************************************/
+
+    // a frozen live slot still counts: its state is what was copied
+    private static boolean live(Table t, int i) {
+        return key(t, i) != 0 && (val(t, i) & STATE) == LIVE;
+    }
+
+    private boolean zeroLive() {
+        return (zero.get() & STATE) == LIVE;
+    }
+
+    // number of keys less than key
+    public int rank(int key) {
+        Table t = settled();
+        int rank = (zeroLive() && 0 < key) ? 1 : 0;
+        for (int i = 0; i < t.M; i++)
+            if (live(t, i) && t.keys[i] < key)
+                rank++;
+        return rank;
+    }
+
+    // number of keys between low and high
+    public int rangeCount(int low, int high) {
+        if (high < low) return 0;
+        Table t = settled();
+        int count = (zeroLive() && low <= 0 && 0 <= high) ? 1 : 0;
+        for (int i = 0; i < t.M; i++)
+            if (live(t, i) && low <= t.keys[i] && t.keys[i] <= high)
+                count++;
+        return count;
+    }
+
+    // the key of rank k, NO_VALUE if k is out of range
+    public int getValByRank(int k) {
+        if (k < 0) return NO_VALUE;
+        int[] heap = new int[k + 1];
+        int size = smallest(heap, k + 1);
+        return size == k + 1 ? heap[0] : NO_VALUE;
+    }
+
+    // the k smallest keys in ascending order (fewer if there are not k)
+    public int[] kSmallest(int k) {
+        if (k < 0) return null;
+        int[] heap = new int[k];
+        int size = smallest(heap, k);
+        int[] result = new int[size];
+        while (size > 0) {
+            result[size - 1] = heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // the k largest keys in descending order (fewer if there are not k)
+    public int[] kLargest(int k) {
+        if (k < 0) return null;
+        int[] heap = new int[k];
+        int size = largest(heap, k);
+        int[] result = new int[size];
+        while (size > 0) {
+            result[size - 1] = ~heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // leave up to k smallest keys in a max-heap in heap[0..k), return how many
+    private int smallest(int[] heap, int k) {
+        if (k == 0) return 0;
+        Table t = settled();
+        int size = 0;
+        if (zeroLive()) size = push(heap, size, 0);
+        for (int i = 0; i < t.M; i++) {
+            if (!live(t, i)) continue;
+            int key = t.keys[i];
+            if (size < k) size = push(heap, size, key);
+            else if (key < heap[0]) { heap[0] = key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    // leave up to k largest keys in heap[0..k), stored complemented so the
+    // same max-heap keeps the smallest of them on top
+    private int largest(int[] heap, int k) {
+        if (k == 0) return 0;
+        Table t = settled();
+        int size = 0;
+        if (zeroLive()) size = push(heap, size, ~0);
+        for (int i = 0; i < t.M; i++) {
+            if (!live(t, i)) continue;
+            int key = t.keys[i];
+            if (size < k) size = push(heap, size, ~key);
+            else if (~key < heap[0]) { heap[0] = ~key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    /*************************************************************************
+     *  Max-heap on a prefix of an int[] (0-based)
+     *************************************************************************/
+
+    private static int push(int[] pq, int size, int v) {
+        int k = size;
+        pq[k] = v;
+        while (k > 0 && pq[(k - 1) / 2] < pq[k]) {
+            int p = (k - 1) / 2;
+            int t = pq[p]; pq[p] = pq[k]; pq[k] = t;
+            k = p;
+        }
+        return size + 1;
+    }
+
+    private static int pop(int[] pq, int size) {
+        pq[0] = pq[--size];
+        sink(pq, size);
+        return size;
+    }
+
+    private static void sink(int[] pq, int size) {
+        int k = 0;
+        while (2 * k + 1 < size) {
+            int j = 2 * k + 1;
+            if (j + 1 < size && pq[j] < pq[j + 1]) j++;
+            if (pq[k] >= pq[j]) break;
+            int t = pq[k]; pq[k] = pq[j]; pq[j] = t;
+            k = j;
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class ManualTest{
     public static void main(String[] args) {
         String[] a = StdIn.readAllStrings();
         if (args.length < 2){
-            System.out.format("Usage: -Datastructure Datasize [hashtablesize] \n-H: Hash Table -T: Balanced Search Tree\nExample:java test -T 10000\nExample: java Test -H 10000 20000\n");
+            System.out.format("Usage: -Datastructure Datasize [hashtablesize] \n-H: Hash Table -T: Balanced Search Tree\n-F file [hashtablesize]: int Hash Table kept in a file between runs\nExample:java test -T 10000\nExample: java Test -H 10000 20000\n");
             return;
 
         }
@@ -55,6 +55,42 @@ public class ManualTest{
             return;
             
         }
+        else if (args[0].equals("-F")) {
+            /* int table kept in the file args[1] between runs */
+            long capacity = args.length > 2 ? Long.parseLong(args[2]) : 16;
+            try (MappedIntIntHash mih = new MappedIntIntHash(args[1], capacity)) {
+                for (int i = 0; i < a.length; i++){
+                    if (a[i].equals("Insert")){
+                        mih.insert( Integer.parseInt(a[++i]), Integer.parseInt(a[++i]));
+                    }
+                    else if (a[i].equals("Search")){
+                        mih.search(Integer.parseInt(a[++i]));
+                    }
+                    else if (a[i].equals("Delete")){
+                        mih.delete(Integer.parseInt(a[++i]));
+                    }
+                    else if (a[i].equals("Rank")){
+                        System.out.printf("%d\n", mih.rank(Integer.parseInt(a[++i])));
+                    }
+                    else if (a[i].equals("GetValByRank")){
+                        System.out.printf("%d\n", mih.getValByRank(Integer.parseInt(a[++i])));
+                    }
+                    else if (a[i].equals("RangeCount")){
+                        System.out.println(mih.rangeCount(Integer.parseInt(a[++i]),Integer.parseInt(a[++i])));
+                    }
+                    else if (a[i].equals("kSmallest")){
+                        mih.kSmallest(Integer.parseInt(a[++i]));
+                    }
+                    else if (a[i].equals("kLargest")){
+                        mih.kLargest(Integer.parseInt(a[++i]));
+                    }
+                }
+            }
+            catch (java.io.IOException e) {
+                System.out.format("Cannot open %s: %s\n", args[1], e.getMessage());
+            }
+            return;
+        }
         else if (args[0].equals("-T")) {
             RedBlackBST<Integer, Integer> rbt = new RedBlackBST<Integer, Integer>();
             for (int i = 0; i < a.length; i++){
@@ -0,0 +1,230 @@
+/*************************************************************************
+ *  Compilation:  javac MappedIntIntHash.java
+ *
+ *  OffHeapIntIntHash whose slots live in a memory-mapped file, so a table
+ *  built by one run can be reopened by the next without reinserting
+ *  anything.
+ *
+ *  File layout: a 64-byte header, then the slots exactly as in memory.
+ *
+ *      0  int   magic "LPHT"
+ *      4  int   format version
+ *      8  long  number of slots
+ *     16  int   number of keys
+ *     20  int   flags (key 0 present, closed cleanly)
+ *     24  int   value of the key 0
+ *     28  int   byte order marker
+ *
+ *  Opening an existing file only reads the header and maps the slots,
+ *  and the pages load lazily on first touch. close() forces the slots
+ *  to disk, then writes the header and marks the file clean. A file that
+ *  was never closed cleanly has its key count recomputed by one scan on
+ *  the next open. Its contents are whatever pages reached the disk, so
+ *  the file is not crash-safe.
+ *
+ *  Growing the table writes the new slots to <file>.resize and renames
+ *  that file over the old one.
+ *
+ *************************************************************************/
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+public class MappedIntIntHash extends OffHeapIntIntHash {
+    private static final int MAGIC = 0x4C504854;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int ORDER_MARKER = 0x01020304;
+    private static final int HAS_EMPTY_KEY = 1;
+    private static final int CLEAN = 2;
+
+    private final Path path;
+    private FileChannel channel;      // the file holding the current slots
+    private MappedByteBuffer header;  // its header
+    private Opened resized;           // file being filled by a resize
+    private boolean closing;
+
+    // open the table in the file, or create it with at least the given
+    // number of slots if the file does not exist
+    public MappedIntIntHash(String file, long capacity) throws IOException {
+        this(Opened.open(Paths.get(file), capacity));
+    }
+
+    // open the table in an existing file
+    public MappedIntIntHash(String file) throws IOException {
+        this(Opened.open(Paths.get(file), -1));
+    }
+
+    private MappedIntIntHash(Opened o) {
+        super(o.chunks, o.capacity, o.n, o.hasEmptyKey, o.emptyKeyVal);
+        this.path = o.path;
+        this.channel = o.channel;
+        this.header = o.header;
+    }
+
+    // the file the table lives in
+    public Path path() {
+        return path;
+    }
+
+    /*************************************************************************
+     *  Storage hooks - a resize maps a new file, then swaps it in
+     *************************************************************************/
+
+    protected ByteBuffer[] allocate(long slots) {
+        try {
+            resized = Opened.create(resizePath(), slots);
+            return resized.chunks;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected void release(ByteBuffer[] a) {
+        try {
+            if (closing) {
+                for (ByteBuffer b : a) ((MappedByteBuffer) b).force();
+                free(a);
+                return;
+            }
+
+            // end of a resize: the old slots are garbage, the new file takes over
+            free(a);
+            free(header);
+            channel.close();
+            Files.move(resizePath(), path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = resized.channel;
+            header = resized.header;
+            resized = null;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path resizePath() {
+        return path.resolveSibling(path.getFileName() + ".resize");
+    }
+
+    // force the slots to disk, record the header and unmap the file
+    public void close() {
+        if (header == null) return;
+        long capacity = capacity();
+        int n = size();
+        boolean hasEmptyKey = contains(0);
+        int emptyKeyVal = hasEmptyKey ? search(0) : 0;
+
+        closing = true;
+        super.close();
+        writeHeader(header, capacity, n, (hasEmptyKey ? HAS_EMPTY_KEY : 0) | CLEAN, emptyKeyVal);
+        header.force();
+        free(header);
+        header = null;
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeHeader(ByteBuffer h, long capacity, int n, int flags, int emptyKeyVal) {
+        h.putInt(0, MAGIC);
+        h.putInt(4, VERSION);
+        h.putLong(8, capacity);
+        h.putInt(16, n);
+        h.putInt(20, flags);
+        h.putInt(24, emptyKeyVal);
+        h.putInt(28, ORDER_MARKER);
+    }
+
+    /*************************************************************************
+     *  A mapped file: its channel, header and slot buffers
+     *************************************************************************/
+
+    private static class Opened {
+        Path path;
+        FileChannel channel;
+        MappedByteBuffer header;
+        ByteBuffer[] chunks;
+        long capacity;
+        int n;
+        boolean hasEmptyKey;
+        int emptyKeyVal;
+
+        static Opened open(Path path, long capacity) throws IOException {
+            if (!Files.exists(path)) {
+                if (capacity < 0) throw new FileNotFoundException(path.toString());
+                Opened o = create(path, tableSizeFor(capacity));
+                o.header.force();
+                return o;
+            }
+
+            Opened o = new Opened();
+            o.path = path;
+            o.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (o.channel.size() < HEADER_BYTES) throw invalid(o, "file too short for a header");
+            o.header = o.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            o.header.order(ByteOrder.nativeOrder());
+            if (o.header.getInt(0) != MAGIC)        throw invalid(o, "not a hash table file");
+            if (o.header.getInt(4) != VERSION)      throw invalid(o, "unsupported format version " + o.header.getInt(4));
+            if (o.header.getInt(28) != ORDER_MARKER) throw invalid(o, "written with a different byte order");
+            o.capacity = o.header.getLong(8);
+            if (Long.bitCount(o.capacity) != 1 || o.channel.size() < HEADER_BYTES + o.capacity * 8)
+                throw invalid(o, "slot count does not match the file");
+            int flags = o.header.getInt(20);
+            o.n = o.header.getInt(16);
+            o.hasEmptyKey = (flags & HAS_EMPTY_KEY) != 0;
+            o.emptyKeyVal = o.header.getInt(24);
+            o.chunks = map(o.channel, o.capacity);
+            if ((flags & CLEAN) == 0) o.n = count(o.chunks, o.capacity) + (o.hasEmptyKey ? 1 : 0);
+
+            // mark the file as in use until the next clean close
+            o.header.putInt(20, flags & ~CLEAN);
+            o.header.force();
+            return o;
+        }
+
+        // a new file of zeroed slots
+        static Opened create(Path path, long capacity) throws IOException {
+            Opened o = new Opened();
+            o.path = path;
+            o.capacity = capacity;
+            o.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                         StandardOpenOption.READ, StandardOpenOption.WRITE);
+            o.header = o.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            o.header.order(ByteOrder.nativeOrder());
+            writeHeader(o.header, capacity, 0, 0, 0);
+            o.chunks = map(o.channel, capacity);
+            return o;
+        }
+
+        // map the slots following the header, growing the file if needed
+        private static ByteBuffer[] map(FileChannel channel, long capacity) throws IOException {
+            ByteBuffer[] a = new ByteBuffer[chunkCount(capacity)];
+            long offset = HEADER_BYTES;
+            for (int c = 0; c < a.length; c++) {
+                long bytes = chunkBytes(capacity, c);
+                a[c] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes).order(ByteOrder.nativeOrder());
+                offset += bytes;
+            }
+            return a;
+        }
+
+        // number of used slots
+        private static int count(ByteBuffer[] a, long capacity) {
+            int n = 0;
+            for (int c = 0; c < a.length; c++)
+                for (int i = 0; i < chunkBytes(capacity, c); i += 8)
+                    if (a[c].getInt(i) != 0) n++;
+            return n;
+        }
+
+        private static IOException invalid(Opened o, String reason) throws IOException {
+            o.channel.close();
+            return new IOException(o.path + ": " + reason);
+        }
+    }
+}
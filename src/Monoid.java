@@ -0,0 +1,61 @@
+/*************************************************************************
+ *  Compilation:  javac Monoid.java
+ *
+ *  An associative way of combining values with an identity, for the
+ *  subtree aggregates of RedBlackBST. combine need not be commutative:
+ *  the tree always combines values in key order. The common ones are
+ *  below. min and max use null as the identity, so they work for any
+ *  Comparable value.
+ *
+ *************************************************************************/
+public interface Monoid<T> {
+
+    // the value that combine leaves unchanged
+    T identity();
+
+    // a combined with b; must be associative
+    T combine(T a, T b);
+
+    static Monoid<Integer> intSum() {
+        return new Monoid<Integer>() {
+            public Integer identity() { return 0; }
+            public Integer combine(Integer a, Integer b) { return a + b; }
+        };
+    }
+
+    static Monoid<Long> longSum() {
+        return new Monoid<Long>() {
+            public Long identity() { return 0L; }
+            public Long combine(Long a, Long b) { return a + b; }
+        };
+    }
+
+    static Monoid<Double> doubleSum() {
+        return new Monoid<Double>() {
+            public Double identity() { return 0.0; }
+            public Double combine(Double a, Double b) { return a + b; }
+        };
+    }
+
+    static <T extends Comparable<T>> Monoid<T> min() {
+        return new Monoid<T>() {
+            public T identity() { return null; }
+            public T combine(T a, T b) {
+                if (a == null) return b;
+                if (b == null) return a;
+                return b.compareTo(a) < 0 ? b : a;
+            }
+        };
+    }
+
+    static <T extends Comparable<T>> Monoid<T> max() {
+        return new Monoid<T>() {
+            public T identity() { return null; }
+            public T combine(T a, T b) {
+                if (a == null) return b;
+                if (b == null) return a;
+                return b.compareTo(a) > 0 ? b : a;
+            }
+        };
+    }
+}
@@ -0,0 +1,422 @@
+/*************************************************************************
+ *  Compilation:  javac OffHeapIntIntHash.java
+ *
+ *  Linear probing hash table for int keys and int values stored outside
+ *  the Java heap.
+ *
+ *  Same algorithm and API as IntIntLinearProbingHash, but each slot is
+ *  8 bytes (key, then value) in direct ByteBuffers of at most 2^24 slots.
+ *  Slot indices are longs, so the table can grow past 2^31 slots, and
+ *  the garbage collector never traces the slots. 10^8 keys at 50% load
+ *  take 2^28 slots, about 2 GB of native memory and almost no heap.
+ *
+ *  close() frees the native memory right away. Every later call throws
+ *  IllegalStateException. Use the table in try-with-resources.
+ *
+ *************************************************************************/
+import java.lang.reflect.*;
+import java.nio.*;
+import java.util.function.IntConsumer;
+
+public class OffHeapIntIntHash implements AutoCloseable {
+    public static final int NO_VALUE = Integer.MIN_VALUE;   // returned for absent keys
+    private static final int INIT_CAPACITY = 16;
+    private static final long MAX_CAPACITY = 1L << 32;
+    private static final int EMPTY = 0;                     // key marking a free slot
+    private static final int SLOT_BYTES = 8;
+    private static final int CHUNK_SHIFT = 24;              // slots per chunk = 2^24 (128 MB)
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private int N;                 // number of key-value pairs in the symbol table
+    private long M;                // number of slots, a power of two
+    private long mask;             // M - 1
+    private ByteBuffer[] chunks;   // the slots, null once closed
+    private boolean hasEmptyKey;   // is the key 0 present?
+    private int emptyKeyVal;       // value of the key 0
+    private int[] heap = new int[16];   // scratch buffer reused by the order queries
+
+    // create an empty hash table - use 16 as default size
+    public OffHeapIntIntHash() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a hash table with at least the given number of slots
+    public OffHeapIntIntHash(long capacity) {
+        M = tableSizeFor(capacity);
+        mask = M - 1;
+        chunks = allocate(M);
+    }
+
+    // adopt slots that already hold n keys, for subclasses that keep the
+    // slots somewhere else (see MappedIntIntHash)
+    protected OffHeapIntIntHash(ByteBuffer[] chunks, long capacity, int n, boolean hasEmptyKey, int emptyKeyVal) {
+        this.chunks = chunks;
+        this.M = capacity;
+        this.mask = capacity - 1;
+        this.N = n;
+        this.hasEmptyKey = hasEmptyKey;
+        this.emptyKeyVal = emptyKeyVal;
+    }
+
+    // smallest power of two >= capacity
+    static long tableSizeFor(long capacity) {
+        if (capacity <= 2) return 2;
+        if (capacity > MAX_CAPACITY) return MAX_CAPACITY;
+        return Long.highestOneBit(capacity - 1) << 1;
+    }
+
+    /*************************************************************************
+     *  Native storage
+     *************************************************************************/
+
+    // zeroed buffers holding the given number of slots
+    protected ByteBuffer[] allocate(long slots) {
+        int n = chunkCount(slots);
+        ByteBuffer[] a = new ByteBuffer[n];
+        for (int c = 0; c < n; c++) {
+            a[c] = ByteBuffer.allocateDirect((int) chunkBytes(slots, c)).order(ByteOrder.nativeOrder());
+        }
+        return a;
+    }
+
+    // buffers that are no longer used, after a resize or on close
+    protected void release(ByteBuffer[] a) {
+        free(a);
+    }
+
+    // number of buffers holding the given number of slots
+    static int chunkCount(long slots) {
+        return (int) ((slots + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    // bytes of slots in buffer c
+    static long chunkBytes(long slots, int c) {
+        return Math.min(slots - ((long) c << CHUNK_SHIFT), 1L << CHUNK_SHIFT) * SLOT_BYTES;
+    }
+
+    // give the memory of direct (or mapped) buffers back to the system now
+    // instead of at the next garbage collection, when the JDK allows it
+    static void free(ByteBuffer... a) {
+        if (INVOKE_CLEANER == null) return;
+        for (ByteBuffer b : a) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, b);
+            }
+            catch (ReflectiveOperationException e) {
+                return;
+            }
+        }
+    }
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            Field f = c.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private int key(ByteBuffer[] a, long i) {
+        return a[(int) (i >>> CHUNK_SHIFT)].getInt((int) (i & CHUNK_MASK) * SLOT_BYTES);
+    }
+
+    private int val(ByteBuffer[] a, long i) {
+        return a[(int) (i >>> CHUNK_SHIFT)].getInt((int) (i & CHUNK_MASK) * SLOT_BYTES + 4);
+    }
+
+    private void set(ByteBuffer[] a, long i, int key, int val) {
+        ByteBuffer b = a[(int) (i >>> CHUNK_SHIFT)];
+        int offset = (int) (i & CHUNK_MASK) * SLOT_BYTES;
+        b.putInt(offset, key);
+        b.putInt(offset + 4, val);
+    }
+
+    private ByteBuffer[] slots() {
+        if (chunks == null) throw new IllegalStateException("table is closed");
+        return chunks;
+    }
+
+    // free the native memory; the table cannot be used afterwards
+    public void close() {
+        if (chunks == null) return;
+        ByteBuffer[] a = chunks;
+        chunks = null;
+        release(a);
+    }
+
+    // bytes of native memory held by the table
+    public long memoryUsed() {
+        return chunks == null ? 0 : M * SLOT_BYTES;
+    }
+
+    /*************************************************************************
+     *  Symbol table methods
+     *************************************************************************/
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        return N;
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    // current number of slots
+    public long capacity() {
+        return M;
+    }
+
+    // hash function for keys - returns value between 0 and M-1
+    private long hash(int key) {
+        int h = key * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & 0xffffffffL) & mask;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(int key) {
+        ByteBuffer[] a = slots();
+        if (key == EMPTY) return hasEmptyKey;
+        return slot(a, key) >= 0;
+    }
+
+    // slot of the key, -1 if it is not there
+    private long slot(ByteBuffer[] a, int key) {
+        for (long i = hash(key); ; i = (i + 1) & mask) {
+            int k = key(a, i);
+            if (k == EMPTY) return -1;
+            if (k == key) return i;
+        }
+    }
+
+    // place a key that is known to be absent
+    private void put(ByteBuffer[] a, int key, int val) {
+        long i;
+        for (i = hash(key); key(a, i) != EMPTY; i = (i + 1) & mask) ;
+        set(a, i, key, val);
+    }
+
+    // rehash every key into a table with the given number of slots
+    private void resize(long capacity) {
+        ByteBuffer[] old = chunks;
+        long oldM = M;
+        M = capacity;
+        mask = M - 1;
+        chunks = allocate(M);
+        for (long i = 0; i < oldM; i++) {
+            int k = key(old, i);
+            if (k != EMPTY) put(chunks, k, val(old, i));
+        }
+        release(old);
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(int key, int val) {
+        ByteBuffer[] a = slots();
+        if (key == EMPTY) {
+            if (!hasEmptyKey) N++;
+            hasEmptyKey = true;
+            emptyKeyVal = val;
+            return;
+        }
+        long i = slot(a, key);
+        if (i >= 0) { set(a, i, key, val); return; }
+
+        // double table size if 50% full
+        if (2L * (N + 1) > M && M < MAX_CAPACITY) resize(2 * M);
+
+        put(chunks, key, val);
+        N++;
+    }
+
+    // return the value associated with the given key, NO_VALUE if no such value
+    public int search(int key) {
+        ByteBuffer[] a = slots();
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyVal : NO_VALUE;
+        long i = slot(a, key);
+        return i >= 0 ? val(a, i) : NO_VALUE;
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(int key) {
+        ByteBuffer[] a = slots();
+        if (key == EMPTY) {
+            if (hasEmptyKey) N--;
+            hasEmptyKey = false;
+            return;
+        }
+        long i = slot(a, key);
+        if (i < 0) return;
+
+        // backward-shift deletion, as in IntIntLinearProbingHash
+        for (long j = (i + 1) & mask; ; j = (j + 1) & mask) {
+            int k = key(a, j);
+            if (k == EMPTY) break;
+            long h = hash(k);
+            if (((j - h) & mask) < ((j - i) & mask)) continue;
+            set(a, i, k, val(a, j));
+            i = j;
+        }
+        set(a, i, EMPTY, 0);
+        N--;
+    }
+
+    // call action with every key; nothing is allocated
+    public void forEachKey(IntConsumer action) {
+        ByteBuffer[] a = slots();
+        if (hasEmptyKey) action.accept(EMPTY);
+        for (long i = 0; i < M; i++) {
+            int k = key(a, i);
+            if (k != EMPTY) action.accept(k);
+        }
+    }
+
+    // call action with every key and its value; nothing is allocated
+    public void forEachEntry(IntIntConsumer action) {
+        ByteBuffer[] a = slots();
+        if (hasEmptyKey) action.accept(EMPTY, emptyKeyVal);
+        for (long i = 0; i < M; i++) {
+            int k = key(a, i);
+            if (k != EMPTY) action.accept(k, val(a, i));
+        }
+    }
+
+    /*************************************************************************
+     *  Order queries - all of them scan the slots once
+     *************************************************************************/
+
+    // number of keys less than key
+    public int rank(int key) {
+        ByteBuffer[] a = slots();
+        int rank = (hasEmptyKey && EMPTY < key) ? 1 : 0;
+        for (long i = 0; i < M; i++) {
+            int k = key(a, i);
+            if (k != EMPTY && k < key) rank++;
+        }
+        return rank;
+    }
+
+    // number of keys between low and high
+    public int rangeCount(int low, int high) {
+        ByteBuffer[] a = slots();
+        if (high < low) return 0;
+        int count = (hasEmptyKey && low <= EMPTY && EMPTY <= high) ? 1 : 0;
+        for (long i = 0; i < M; i++) {
+            int k = key(a, i);
+            if (k != EMPTY && low <= k && k <= high) count++;
+        }
+        return count;
+    }
+
+    // the key of rank k, NO_VALUE if k is out of range
+    public int getValByRank(int k) {
+        slots();
+        if (k < 0 || k >= N) return NO_VALUE;
+        smallest(k + 1);
+        return heap[0];
+    }
+
+    // the k smallest keys in ascending order
+    public int[] kSmallest(int k) {
+        slots();
+        if (k < 0 || k > N) return null;
+        int size = smallest(k);
+        int[] result = new int[k];
+        while (size > 0) {
+            result[size - 1] = heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // the k largest keys in descending order
+    public int[] kLargest(int k) {
+        slots();
+        if (k < 0 || k > N) return null;
+        int size = largest(k);
+        int[] result = new int[k];
+        while (size > 0) {
+            result[size - 1] = ~heap[0];
+            size = pop(heap, size);
+        }
+        return result;
+    }
+
+    // leave the k smallest keys in a max-heap in heap[0..k), return k
+    private int smallest(int k) {
+        if (k == 0) return 0;
+        if (heap.length < k) heap = new int[Math.max(k, 2 * heap.length)];
+        ByteBuffer[] a = chunks;
+        int size = 0;
+        if (hasEmptyKey) size = push(heap, size, EMPTY);
+        for (long i = 0; i < M; i++) {
+            int key = key(a, i);
+            if (key == EMPTY) continue;
+            if (size < k) size = push(heap, size, key);
+            else if (key < heap[0]) { heap[0] = key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    // leave the k largest keys in heap[0..k), stored complemented so the
+    // same max-heap keeps the smallest of them on top
+    private int largest(int k) {
+        if (k == 0) return 0;
+        if (heap.length < k) heap = new int[Math.max(k, 2 * heap.length)];
+        ByteBuffer[] a = chunks;
+        int size = 0;
+        if (hasEmptyKey) size = push(heap, size, ~EMPTY);
+        for (long i = 0; i < M; i++) {
+            int key = key(a, i);
+            if (key == EMPTY) continue;
+            if (size < k) size = push(heap, size, ~key);
+            else if (~key < heap[0]) { heap[0] = ~key; sink(heap, size); }
+        }
+        return size;
+    }
+
+    /*************************************************************************
+     *  Max-heap on a prefix of an int[] (0-based)
+     *************************************************************************/
+
+    private static int push(int[] pq, int size, int v) {
+        int k = size;
+        pq[k] = v;
+        while (k > 0 && pq[(k - 1) / 2] < pq[k]) {
+            int p = (k - 1) / 2;
+            int t = pq[p]; pq[p] = pq[k]; pq[k] = t;
+            k = p;
+        }
+        return size + 1;
+    }
+
+    private static int pop(int[] pq, int size) {
+        pq[0] = pq[--size];
+        sink(pq, size);
+        return size;
+    }
+
+    private static void sink(int[] pq, int size) {
+        int k = 0;
+        while (2 * k + 1 < size) {
+            int j = 2 * k + 1;
+            if (j + 1 < size && pq[j] < pq[j + 1]) j++;
+            if (pq[k] >= pq[j]) break;
+            int t = pq[k]; pq[k] = pq[j]; pq[j] = t;
+            k = j;
+        }
+    }
+}
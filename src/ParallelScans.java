@@ -0,0 +1,313 @@
+/*************************************************************************
+ *  Compilation:  javac ParallelScans.java
+ *
+ *  Fork/join versions of the full-table scans behind the hash table order
+ *  queries, used by LinearProbingHashST in PARALLEL mode.
+ *
+ *  The slot range [0, M) is split recursively on the common ForkJoinPool
+ *  down to LEAF slots. Counting queries add up the per-chunk counts. The
+ *  top-k queries keep a bounded heap per chunk, no larger than the
+ *  chunk's live keys, and merge the sorted results; for large k they
+ *  gather the keys and select instead, like the sequential scan.
+ *  Selection gathers the live keys in parallel and then narrows them
+ *  down with two splitters taken from a random sample (Floyd-Rivest),
+ *  so only the keys between the splitters get sorted.
+ *
+ *  Live slots are found through the table's occupancy bitmap; a null
+ *  bitmap means every slot in the range is live.
+ *
+ *************************************************************************/
+import java.util.*;
+import java.util.concurrent.*;
+
+class ParallelScans
+{
+	private static final int LEAF = 1 << 14;   // slots scanned sequentially by one task
+
+	/*************************************************************************
+	 *  Counting: rank and rangeCount
+	 *************************************************************************/
+
+	// number of live keys in [low, high] (or [low, high) if high is exclusive);
+	// a null low means no lower bound
+	public static <Key extends Comparable<Key>> int count(Key[] keys, long[] occupied, int M, Key low, Key high, boolean inclusive)
+	{
+		return ForkJoinPool.commonPool().invoke(new CountTask<Key>(keys, occupied, 0, M, low, high, inclusive));
+	}
+
+	private static class CountTask<Key extends Comparable<Key>> extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Key[] keys;
+		private final long[] occupied;
+		private final int lo, hi;
+		private final Key low, high;
+		private final boolean inclusive;
+
+		CountTask(Key[] keys, long[] occupied, int lo, int hi, Key low, Key high, boolean inclusive)
+		{
+			this.keys = keys; this.occupied = occupied; this.lo = lo; this.hi = hi;
+			this.low = low; this.high = high; this.inclusive = inclusive;
+		}
+
+		protected Integer compute()
+		{
+			if (hi - lo <= LEAF)
+			{
+				int count = 0;
+				for (int i = next(occupied, lo, hi); i < hi; i = next(occupied, i + 1, hi))
+				{
+					if (low != null && low.compareTo(keys[i]) > 0) continue;
+					int cmp = high.compareTo(keys[i]);
+					if (cmp > 0 || (inclusive && cmp == 0)) count++;
+				}
+				return count;
+			}
+			int mid = (lo + hi) >>> 1;
+			CountTask<Key> left = new CountTask<Key>(keys, occupied, lo, mid, low, high, inclusive);
+			left.fork();
+			int right = new CountTask<Key>(keys, occupied, mid, hi, low, high, inclusive).compute();
+			return left.join() + right;
+		}
+	}
+
+	/*************************************************************************
+	 *  Top k: kSmallest and kLargest
+	 *************************************************************************/
+
+	// the k smallest live keys in ascending order, or the k largest in
+	// descending order; 0 < k <= number of live keys. Large k gathers the
+	// keys and selects, as the sequential scan does, instead of keeping a
+	// heap of k keys per chunk
+	public static <Key extends Comparable<Key>> Key[] topK(Key[] keys, long[] occupied, int M, int k, boolean largest)
+	{
+		int n = live(occupied, 0, M);
+		if (!Selection.useSelection(k, n))
+			return ForkJoinPool.commonPool().invoke(new TopKTask<Key>(keys, occupied, 0, M, k, largest));
+
+		Key[] live = gather(keys, occupied, M);
+		if (!largest)
+		{
+			Selection.select(live, 0, n, k - 1);
+			Arrays.parallelSort(live, 0, k);
+			return Arrays.copyOf(live, k);
+		}
+		Selection.select(live, 0, n, n - k);
+		Arrays.parallelSort(live, n - k, n);
+		Key[] run = (Key[]) new Comparable[k];
+		for (int m = 0; m < k; m++) run[m] = live[n - 1 - m];
+		return run;
+	}
+
+	private static class TopKTask<Key extends Comparable<Key>> extends RecursiveTask<Key[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Key[] keys;
+		private final long[] occupied;
+		private final int lo, hi, k;
+		private final boolean largest;
+
+		TopKTask(Key[] keys, long[] occupied, int lo, int hi, int k, boolean largest)
+		{
+			this.keys = keys; this.occupied = occupied; this.lo = lo; this.hi = hi;
+			this.k = k; this.largest = largest;
+		}
+
+		protected Key[] compute()
+		{
+			if (hi - lo <= LEAF) return largest ? leafLargest() : leafSmallest();
+			int mid = (lo + hi) >>> 1;
+			TopKTask<Key> left = new TopKTask<Key>(keys, occupied, lo, mid, k, largest);
+			left.fork();
+			Key[] b = new TopKTask<Key>(keys, occupied, mid, hi, k, largest).compute();
+			Key[] a = left.join();
+
+			// merge the two sorted runs, keeping the first k
+			Key[] merged = (Key[]) new Comparable[Math.min(k, a.length + b.length)];
+			int i = 0, j = 0;
+			for (int m = 0; m < merged.length; m++)
+			{
+				if      (i == a.length) merged[m] = b[j++];
+				else if (j == b.length) merged[m] = a[i++];
+				else if (largest ? a[i].compareTo(b[j]) >= 0 : a[i].compareTo(b[j]) <= 0) merged[m] = a[i++];
+				else    merged[m] = b[j++];
+			}
+			return merged;
+		}
+
+		private Key[] leafSmallest()
+		{
+			MaxHeap<Key> heap = new MaxHeap<Key>(Math.min(k, live(occupied, lo, hi)));
+			for (int i = next(occupied, lo, hi); i < hi; i = next(occupied, i + 1, hi))
+			{
+				if (heap.size() < k) heap.insert(keys[i]);
+				else if (heap.returnMax().compareTo(keys[i]) > 0)
+				{
+					heap.delMax();
+					heap.insert(keys[i]);
+				}
+			}
+			Key[] run = (Key[]) new Comparable[heap.size()];
+			for (int m = run.length - 1; m >= 0; m--) run[m] = heap.delMax();
+			return run;
+		}
+
+		private Key[] leafLargest()
+		{
+			MinHeap<Key> heap = new MinHeap<Key>(Math.min(k, live(occupied, lo, hi)));
+			for (int i = next(occupied, lo, hi); i < hi; i = next(occupied, i + 1, hi))
+			{
+				if (heap.size() < k) heap.insert(keys[i]);
+				else if (heap.returnMin().compareTo(keys[i]) < 0)
+				{
+					heap.delMin();
+					heap.insert(keys[i]);
+				}
+			}
+			Key[] run = (Key[]) new Comparable[heap.size()];
+			for (int m = run.length - 1; m >= 0; m--) run[m] = heap.delMin();
+			return run;
+		}
+	}
+
+	/*************************************************************************
+	 *  Selection: getValByRank
+	 *************************************************************************/
+
+	// the live key of rank k, 0 <= k < number of live keys
+	public static <Key extends Comparable<Key>> Key select(Key[] keys, long[] occupied, int M, int k)
+	{
+		Key[] live = gather(keys, occupied, M);
+		int n = live.length;
+
+		// sample, and pick splitters a <= b that should bracket rank k
+		Random random = new Random();
+		int s = Math.min(n, Math.max(64, (int) Math.pow(n, 2.0 / 3.0)));
+		Key[] sample = (Key[]) new Comparable[s];
+		for (int i = 0; i < s; i++) sample[i] = live[random.nextInt(n)];
+		Arrays.sort(sample);
+		int gap = (int) Math.sqrt(s) + 1;
+		int pos = (int) ((long) k * s / n);
+		Key a = sample[Math.max(0, pos - gap)];
+		Key b = sample[Math.min(s - 1, pos + gap)];
+
+		// count the keys below a and pull out the ones in [a, b]
+		int below = ForkJoinPool.commonPool().invoke(new CountTask<Key>(live, null, 0, n, null, a, false));
+		Key[] middle = ForkJoinPool.commonPool().invoke(new BetweenTask<Key>(live, 0, n, a, b));
+		if (k >= below && k < below + middle.length)
+		{
+			Arrays.parallelSort(middle);
+			return middle[k - below];
+		}
+
+		// the sample was unlucky; sort everything
+		Arrays.parallelSort(live);
+		return live[k];
+	}
+
+	// the live keys of the table in one array, gathered in parallel
+	private static <Key extends Comparable<Key>> Key[] gather(Key[] keys, long[] occupied, int M)
+	{
+		Key[] live = (Key[]) new Comparable[live(occupied, 0, M)];
+		ForkJoinPool.commonPool().invoke(new GatherTask<Key>(keys, occupied, 0, M, live, 0));
+		return live;
+	}
+
+	// copy the live keys of the slot range into out, starting at offset;
+	// each half knows where its keys go from the live count of the left half
+	private static class GatherTask<Key extends Comparable<Key>> extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Key[] keys, out;
+		private final long[] occupied;
+		private final int lo, hi, offset;
+
+		GatherTask(Key[] keys, long[] occupied, int lo, int hi, Key[] out, int offset)
+		{
+			this.keys = keys; this.occupied = occupied; this.lo = lo; this.hi = hi;
+			this.out = out; this.offset = offset;
+		}
+
+		protected void compute()
+		{
+			if (hi - lo <= LEAF)
+			{
+				int n = offset;
+				for (int i = next(occupied, lo, hi); i < hi; i = next(occupied, i + 1, hi)) out[n++] = keys[i];
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new GatherTask<Key>(keys, occupied, lo, mid, out, offset),
+			          new GatherTask<Key>(keys, occupied, mid, hi, out, offset + live(occupied, lo, mid)));
+		}
+	}
+
+	// copy the keys of a[lo..hi) that lie in [low, high] into one array
+	private static class BetweenTask<Key extends Comparable<Key>> extends RecursiveTask<Key[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Key[] a;
+		private final int lo, hi;
+		private final Key low, high;
+
+		BetweenTask(Key[] a, int lo, int hi, Key low, Key high)
+		{
+			this.a = a; this.lo = lo; this.hi = hi; this.low = low; this.high = high;
+		}
+
+		protected Key[] compute()
+		{
+			if (hi - lo <= LEAF)
+			{
+				Key[] run = (Key[]) new Comparable[hi - lo];
+				int n = 0;
+				for (int i = lo; i < hi; i++)
+					if (low.compareTo(a[i]) <= 0 && high.compareTo(a[i]) >= 0) run[n++] = a[i];
+				return Arrays.copyOf(run, n);
+			}
+			int mid = (lo + hi) >>> 1;
+			BetweenTask<Key> left = new BetweenTask<Key>(a, lo, mid, low, high);
+			left.fork();
+			Key[] b = new BetweenTask<Key>(a, mid, hi, low, high).compute();
+			return concat(left.join(), b);
+		}
+	}
+
+	// number of live slots in [lo, hi)
+	private static int live(long[] occupied, int lo, int hi)
+	{
+		if (occupied == null || lo >= hi) return Math.max(0, hi - lo);
+		int first = lo >>> 6, last = (hi - 1) >>> 6;
+		if (first == last) return Long.bitCount(occupied[first] & (-1L << lo) & (-1L >>> -hi));
+		int n = Long.bitCount(occupied[first] & (-1L << lo)) + Long.bitCount(occupied[last] & (-1L >>> -hi));
+		for (int i = first + 1; i < last; i++) n += Long.bitCount(occupied[i]);
+		return n;
+	}
+
+	// first live slot in [i, hi), hi if there is none
+	private static int next(long[] occupied, int i, int hi)
+	{
+		if (occupied == null || i >= hi) return i;
+		int w = i >>> 6;
+		long word = occupied[w] & (-1L << i);
+		while (word == 0)
+		{
+			if ((++w << 6) >= hi) return hi;
+			word = occupied[w];
+		}
+		return Math.min(hi, (w << 6) + Long.numberOfTrailingZeros(word));
+	}
+
+	private static <Key> Key[] concat(Key[] a, Key[] b)
+	{
+		if (a.length == 0) return b;
+		if (b.length == 0) return a;
+		Key[] c = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+}
@@ -17,6 +17,8 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
     private static final boolean RED   = true;
 	private static final boolean BLACK = false;
 	private Node root;     // root of the BST
+	private final Monoid<Value> monoid;   // combines the values of a subtree; null for none
+	private int modCount;  // structural changes, so cursors can fail fast
 	// BST helper node data type
 	private class Node {
 		private Key key;           // key
@@ -24,15 +26,28 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		private Node left, right;  // links to left and right subtrees
 		private boolean color;     // color of parent link
 		private int N;             // subtree count
+		private Value agg;         // values of the subtree combined, with a monoid
 
 		public Node(Key key, Value val, boolean color, int N) {
 			this.key = key;
 			this.val = val;
+			this.agg = val;
 			this.color = color;
 			this.N = N;
 		}
 	}
 
+	// create an empty tree
+	public RedBlackBST() {
+		this(null);
+	}
+
+	// create an empty tree that keeps, in every node, the values of its
+	// subtree combined with the monoid, for rangeAggregate
+	public RedBlackBST(Monoid<Value> monoid) {
+		this.monoid = monoid;
+	}
+
 	/*************************************************************************
 	 *  Node helper methods
 	 *************************************************************************/
@@ -48,6 +63,16 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		return x.N;
 	}
 
+	// recompute the aggregate of x from its value and its children's
+	// aggregates, if there is a monoid
+	private void pull(Node x) {
+		if (monoid == null) return;
+		Value a = x.val;
+		if (x.left  != null) a = monoid.combine(x.left.agg, a);
+		if (x.right != null) a = monoid.combine(a, x.right.agg);
+		x.agg = a;
+	}
+
 
 	/*************************************************************************
 	 *  Size methods
@@ -89,6 +114,64 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		return (search(x, key) != null);
 	}
 
+	/*************************************************************************
+	 *  Path stack
+	 *
+	 *  insert and the deletes walk down iteratively, pushing each node
+	 *  they pass onto path, and then fix the tree up on the way back.
+	 *  A rotation replaces the root of a subtree, and relink() stores the
+	 *  new root in its parent's link only if it changed.
+	 *************************************************************************/
+
+	private Node[] path = (Node[]) new RedBlackBST.Node[64];   // reused by every call
+
+	// double the room on path
+	private Node[] growPath() {
+		path = Arrays.copyOf(path, 2 * path.length);
+		return path;
+	}
+
+	// x takes the place of old as a child of parent (as the root if
+	// parent is null)
+	private void relink(Node parent, Node old, Node x) {
+		if (x == old) return;
+		if (parent == null)          root = x;
+		else if (parent.left == old) parent.left = x;
+		else                         parent.right = x;
+	}
+
+	// Restore the invariants from path[d] up to the root, where the size
+	// of every subtree on the path changed by delta. Nodes above depth
+	// clean were not changed on the way down. Once the fixed subtree below
+	// such a node has a black root, none of the checks above can fire any
+	// more (a black link never starts a red-red pair or a red right link),
+	// so the rest of the walk only adjusts sizes. After an insertion each
+	// level gets the insert fix-up, after a deletion it gets balance().
+	private void fixUp(int d, int delta, int clean) {
+		Node[] p = path;
+		for (; d >= 0; d--) {
+			Node h = p[d];
+			Node x;
+			if (delta < 0) x = balance(h);
+			else {
+				x = h;
+				if (isRed(x.right) && !isRed(x.left))      x = rotateLeft(x);
+				if (isRed(x.left)  &&  isRed(x.left.left)) x = rotateRight(x);
+				if (isRed(x.left)  &&  isRed(x.right))     flipColors(x);
+				x.N = size(x.left) + size(x.right) + 1;
+				pull(x);
+			}
+			if (x != h) relink(d == 0 ? null : p[d-1], h, x);
+			if (!isRed(x) && d <= clean) {
+				for (d--; d >= 0; d--) {
+					p[d].N += delta;
+					pull(p[d]);
+				}
+				return;
+			}
+		}
+	}
+
 	/*************************************************************************
 	 *  Red-black insertion
 	 *************************************************************************/
@@ -96,128 +179,127 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 	// insert the key-value pair; overwrite the old value with the new value
 	// if the key is already present
 	public void insert(Key key, Value val) {
-		root = insert(root, key, val);
-		root.color = BLACK;
-		// assert check();
-	}
-
-	// insert the key-value pair in the subtree rooted at h
-	private Node insert(Node h, Key key, Value val) {
-		if (h == null) return new Node(key, val, RED, 1);
-
-		int cmp = key.compareTo(h.key);
-		if      (cmp < 0) h.left  = insert(h.left,  key, val);
-		else if (cmp > 0) h.right = insert(h.right, key, val);
-		else              h.val   = val;
+		Node[] p = path;
+		int d = 0;
+		int cmp = 0;
+		for (Node x = root; x != null; x = cmp < 0 ? x.left : x.right) {
+			cmp = key.compareTo(x.key);
+			if (cmp == 0) {
+				// only the aggregates on the path can change
+				x.val = val;
+				pull(x);
+				while (d > 0) pull(p[--d]);
+				return;
+			}
+			if (d == p.length) p = growPath();
+			p[d++] = x;
+		}
 
-		// fix-up any right-leaning links
-		if (isRed(h.right) && !isRed(h.left))      h = rotateLeft(h);
-		if (isRed(h.left)  &&  isRed(h.left.left)) h = rotateRight(h);
-		if (isRed(h.left)  &&  isRed(h.right))     flipColors(h);
-		h.N = size(h.left) + size(h.right) + 1;
+		modCount++;
+		Node x = new Node(key, val, RED, 1);
+		if (d == 0)       root = x;
+		else if (cmp < 0) p[d-1].left = x;
+		else              p[d-1].right = x;
 
-		return h;
+		// nothing was changed on the way down
+		fixUp(d - 1, +1, d);
+		root.color = BLACK;
+		// assert check();
 	}
 
 	/*************************************************************************
 	 *  Red-black deletion
 	 *************************************************************************/
 
+	private static final int FIND = 0, MIN = 1, MAX = 2;   // what removeNode() removes
+
 	// delete the key-value pair with the minimum key
 	public void deleteMin() {
 		if (isEmpty()) throw new NoSuchElementException("BST underflow");
-
-		// if both children of root are black, set root to red
-		if (!isRed(root.left) && !isRed(root.right))
-			root.color = RED;
-
-		root = deleteMin(root);
-		if (!isEmpty()) root.color = BLACK;
+		removeNode(null, MIN);
 		// assert check();
 	}
 
-	// delete the key-value pair with the minimum key rooted at h
-	private Node deleteMin(Node h) {
-		if (h.left == null)
-			return null;
-
-		if (!isRed(h.left) && !isRed(h.left.left))
-			h = moveRedLeft(h);
-
-		h.left = deleteMin(h.left);
-		return balance(h);
-	}
-
-
 	// delete the key-value pair with the maximum key
 	public void deleteMax() {
 		if (isEmpty()) throw new NoSuchElementException("BST underflow");
-
-		// if both children of root are black, set root to red
-		if (!isRed(root.left) && !isRed(root.right))
-			root.color = RED;
-
-		root = deleteMax(root);
-		if (!isEmpty()) root.color = BLACK;
+		removeNode(null, MAX);
 		// assert check();
 	}
 
-	// delete the key-value pair with the maximum key rooted at h
-	private Node deleteMax(Node h) {
-		if (isRed(h.left))
-			h = rotateRight(h);
-
-		if (h.right == null)
-			return null;
-
-		if (!isRed(h.right) && !isRed(h.right.left))
-			h = moveRedRight(h);
-
-		h.right = deleteMax(h.right);
-
-		return balance(h);
-	}
-
 	// delete the key-value pair with the given key
 	public void delete(Key key) {
 		if (!contains(key)) {
 			return;
 		}
+		removeNode(key, FIND);
+		// assert check();
+	}
 
+	// Remove the node with the given key (FIND), the smallest key (MIN) or
+	// the largest key (MAX) from the non-empty tree, with the top-down
+	// steps of the recursive LLRB delete: keep the current node or the
+	// child taken next red by moveRedLeft / moveRedRight on the way down,
+	// and balance on the way back. A FIND that hits a node with a right
+	// subtree continues as a MIN search there and moves that minimum up.
+	private void removeNode(Key key, int mode) {
+		modCount++;
 		// if both children of root are black, set root to red
 		if (!isRed(root.left) && !isRed(root.right))
 			root.color = RED;
 
-		root = delete(root, key);
-		if (!isEmpty()) root.color = BLACK;
-		// assert check();
-	}
-
-	// delete the key-value pair with the given key rooted at h
-	private Node delete(Node h, Key key) {
-		// assert contains(h, key);
-
-		if (key.compareTo(h.key) < 0)  {
-			if (!isRed(h.left) && !isRed(h.left.left))
-				h = moveRedLeft(h);
-			h.left = delete(h.left, key);
-		}
-		else {
-			if (isRed(h.left))
-				h = rotateRight(h);
-			if (key.compareTo(h.key) == 0 && (h.right == null))
-				return null;
-			if (!isRed(h.right) && !isRed(h.right.left))
-				h = moveRedRight(h);
-			if (key.compareTo(h.key) == 0) {
-				Node x = min(h.right);
-				h.key = x.key;
-				h.val = x.val;
-				h.right = deleteMin(h.right);
+		Node[] p = path;
+		int d = 0;
+		int clean = Integer.MAX_VALUE;   // depth of the first node changed on the way down
+		Node parent = null;
+		Node found = null;               // node that takes over its successor's key
+		Node h = root;
+		while (true) {
+			Node old = h;
+			boolean moved = false;   // did a flip or rotation change h?
+			boolean goLeft = mode == MIN || (mode == FIND && key.compareTo(h.key) < 0);
+			if (goLeft) {
+				if (h.left == null) break;   // only for MIN: h is the minimum
+				if (!isRed(h.left) && !isRed(h.left.left)) {
+					h = moveRedLeft(h);
+					moved = true;
+				}
+			}
+			else {
+				if (isRed(h.left)) {
+					h = rotateRight(h);
+					moved = true;
+				}
+				// never right after the rotation, which leaves a right child
+				if (h.right == null && (mode == MAX || key.compareTo(h.key) == 0)) break;
+				if (!isRed(h.right) && !isRed(h.right.left)) {
+					h = moveRedRight(h);
+					moved = true;
+				}
+				if (mode == FIND && key.compareTo(h.key) == 0) {
+					found = h;
+					mode = MIN;
+				}
 			}
-			else h.right = delete(h.right, key);
+			if (moved) {
+				relink(parent, old, h);
+				if (clean > d) clean = d;
+			}
+			if (d == p.length) p = growPath();
+			p[d++] = h;
+			parent = h;
+			h = goLeft ? h.left : h.right;
+		}
+
+		// h has no left child (MIN) or no right child (MAX, FIND); in an
+		// LLRB tree its other child is null too
+		if (found != null) {
+			found.key = h.key;
+			found.val = h.val;
 		}
-		return balance(h);
+		relink(parent, h, null);
+		fixUp(d - 1, -1, clean);
+		if (!isEmpty()) root.color = BLACK;
 	}
 
 	/*************************************************************************
@@ -234,6 +316,8 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		x.right.color = RED;
 		x.N = h.N;
 		h.N = size(h.left) + size(h.right) + 1;
+		x.agg = h.agg;
+		pull(h);
 		return x;
 	}
 
@@ -247,6 +331,8 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		x.left.color = RED;
 		x.N = h.N;
 		h.N = size(h.left) + size(h.right) + 1;
+		x.agg = h.agg;
+		pull(h);
 		return x;
 	}
 
@@ -296,6 +382,7 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		if (isRed(h.left) && isRed(h.right))     flipColors(h);
 
 		h.N = size(h.left) + size(h.right) + 1;
+		pull(h);
 		return h;
 	}
 
@@ -404,16 +491,15 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 
 	// number of keys less than key
 	public int rank(Key key) {
-		return rank(key, root);
-	}
-
-	// number of keys less than key in the subtree rooted at x
-	private int rank(Key key, Node x) {
-		if (x == null) return 0;
-		int cmp = key.compareTo(x.key);
-		if      (cmp < 0) return rank(key, x.left);
-		else if (cmp > 0) return 1 + size(x.left) + rank(key, x.right);
-		else              return size(x.left);
+		int rank = 0;
+		Node x = root;
+		while (x != null) {
+			int cmp = key.compareTo(x.key);
+			if      (cmp < 0) x = x.left;
+			else if (cmp > 0) { rank += 1 + size(x.left); x = x.right; }
+			else              return rank + size(x.left);
+		}
+		return rank;
 	}
 
 
@@ -426,87 +512,336 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		return keys(min(), max());
 	}
 
-	// the keys between lo and hi, as an Iterable
+	// the keys between lo and hi, as an Iterable. Nothing is copied: a
+	// cursor walks the tree as the iteration goes, and changing the tree
+	// during the iteration makes it throw ConcurrentModificationException
 	public Iterable<Key> keys(Key lo, Key hi) {
-
-		Queue<Key> queue = new Queue<Key>();
-		// if (isEmpty() || lo.compareTo(hi) > 0) return queue;
-		keys(root, queue, lo, hi);
-		return queue;
+		return () -> new RangeIterator(lo, hi);
 	}
 
+	// the entries with keys between lo and hi, in key order, read the
+	// same way as keys(lo, hi)
+	public Iterable<Map.Entry<Key, Value>> entries(Key lo, Key hi) {
+		return () -> new Iterator<Map.Entry<Key, Value>>() {
+			private final RangeIterator keys = new RangeIterator(lo, hi);
+
+			public boolean hasNext() { return keys.hasNext(); }
 
-	// add the keys between lo and hi in the subtree rooted at x
-	// to the queue
-	private void keys(Node x, Queue<Key> queue, Key lo, Key hi) {
-		if (x == null) return;
-		int cmplo = lo.compareTo(x.key);
-		int cmphi = hi.compareTo(x.key);
-		if (cmplo < 0) keys(x.left, queue, lo, hi);
-		if (cmplo <= 0 && cmphi >= 0) queue.enqueue(x.key);
-		if (cmphi > 0) keys(x.right, queue, lo, hi);
+			public Map.Entry<Key, Value> next() {
+				Node x = keys.nextNode();
+				return new AbstractMap.SimpleImmutableEntry<Key, Value>(x.key, x.val);
+			}
+		};
+	}
+
+	// the node of the subtree rooted at x where the search paths for lo and
+	// hi part; the first key in [lo, hi] met from the top, null if none
+	private Node split(Node x, Key lo, Key hi) {
+		while (x != null) {
+			if      (hi.compareTo(x.key) < 0) x = x.left;
+			else if (lo.compareTo(x.key) > 0) x = x.right;
+			else                              return x;
+		}
+		return null;
 	}
 
 	// number keys between lo and hi
-	public int rangeCount(Key lo, Key hi) {			
-        /* TODO: Implement rangeCount here... */
-		if (hi.compareTo(lo) < 0)					// check for bad input, return 0
-			return 0;
-		Node lowBound = ceiling(root, lo);			// find lo or the key closest to lo that is larger
-		Node highBound = floor(root, hi);			// find hi or the key closest to hi that is smaller
-		int lowRange = rank(lowBound.key);			// compute the rank of both functions
-		int highRange = rank(highBound.key);
-		return highRange - lowRange + 1;			// subtract the larger from the smaller and add 1
-		
-	}
-
-    public Iterable<Key> kSmallest(int k) {
-        /* TODO: Implement kSmallest here... */
-    	if (k < 0 || k > size(root))				// check for bad input
-    		return null;
-    	Queue<Key> keys = new Queue<Key>();			// create queue
-    	inOrderTraverse(root, k, keys);				// inorder traverse the tree
-    	return keys;
-    }
-    
-    private void inOrderTraverse(Node x, int k, Queue<Key> keys)
-    {
-    	if (x == null)								// if node is null, return 
-    		return;
-    	inOrderTraverse(x.left, k, keys);			// go all the way left
-    	if (k > keys.size())						// if the queue holds less elements than we want, add another
-    	{
-      		keys.enqueue(x.key);
-    	}
-    	else 
-    		return;									// if queue already has enough, return
-    	inOrderTraverse(x.right, k, keys);			// go right
-    }
-    
-
-    public Iterable<Key> kLargest(int k){
-        /* TODO: Implement kLargest here... */
-    	if (k < 0 || k > size(root))				// check for bad input
-    		return null;
-    	Queue<Key> keys = new Queue<Key>();			// create queue
-    	backwardsTraverse(root, k, keys);			// traverse tree starting with largest keys
-    	return keys;
-    }
-    
-    private void backwardsTraverse(Node x, int k, Queue<Key> keys)
-    {
-    	if (x == null)								// return is node is null
-    		return;
-    	backwardsTraverse(x.right, k, keys);		// go all the way right
-    	if (k >  keys.size())						// if queue doesn't have the desired amount of elements, add another
-    	{
-    		keys.enqueue(x.key);
-    	}
-    	else										// if queue has enough, return
-    		return;
-    	backwardsTraverse(x.left, k, keys);			// go left
-    }
-    
+	public int rangeCount(Key lo, Key hi) {
+		if (hi.compareTo(lo) < 0) return 0;
+		Node x = split(root, lo, hi);
+		if (x == null) return 0;
+		// a node >= lo on the walk to lo brings its right subtree along,
+		// all of it in [lo, x.key); the walk to hi is the mirror image
+		int count = 1;
+		for (Node y = x.left; y != null; ) {
+			if (lo.compareTo(y.key) <= 0) { count += 1 + size(y.right); y = y.left; }
+			else                            y = y.right;
+		}
+		for (Node y = x.right; y != null; ) {
+			if (hi.compareTo(y.key) >= 0) { count += 1 + size(y.left); y = y.right; }
+			else                            y = y.left;
+		}
+		return count;
+	}
+
+	// the values of all keys combined in key order
+	public Value aggregate() {
+		if (monoid == null) throw new UnsupportedOperationException("tree has no monoid");
+		return isEmpty() ? monoid.identity() : root.agg;
+	}
+
+	// the values of the keys between lo and hi combined in key order; the
+	// identity if there are none. Same two walks as rangeCount, with the
+	// aggregates of whole subtrees in place of their sizes.
+	public Value rangeAggregate(Key lo, Key hi) {
+		if (monoid == null) throw new UnsupportedOperationException("tree has no monoid");
+		if (hi.compareTo(lo) < 0) return monoid.identity();
+		Node x = split(root, lo, hi);
+		if (x == null) return monoid.identity();
+		Value left = monoid.identity();    // keys in [lo, x.key), built from the right
+		for (Node y = x.left; y != null; ) {
+			if (lo.compareTo(y.key) <= 0) {
+				if (y.right != null) left = monoid.combine(y.right.agg, left);
+				left = monoid.combine(y.val, left);
+				y = y.left;
+			}
+			else y = y.right;
+		}
+		Value right = monoid.identity();   // keys in (x.key, hi], built from the left
+		for (Node y = x.right; y != null; ) {
+			if (hi.compareTo(y.key) >= 0) {
+				if (y.left != null) right = monoid.combine(right, y.left.agg);
+				right = monoid.combine(right, y.val);
+				y = y.right;
+			}
+			else y = y.left;
+		}
+		return monoid.combine(monoid.combine(left, x.val), right);
+	}
+
+	// the k smallest keys, smallest first
+	public Iterable<Key> kSmallest(int k) {
+		if (k < 0 || k > size(root))
+			return null;
+		return () -> new RangeIterator(k, false);
+	}
+
+	// the k largest keys, largest first
+	public Iterable<Key> kLargest(int k) {
+		if (k < 0 || k > size(root))
+			return null;
+		return () -> new RangeIterator(k, true);
+	}
+
+	// The entries of [lo, hi] from the offset-th on, at most limit of them,
+	// with a token to continue from: the key of the next entry, null when
+	// the range is done. page(next, hi, 0, limit) returns the next page,
+	// even if the tree changed in between. The offset is skipped by rank,
+	// in O(log n).
+	public Page page(Key lo, Key hi, int offset, int limit) {
+		if (offset < 0 || limit < 0) throw new IllegalArgumentException("negative offset or limit");
+		List<Map.Entry<Key, Value>> entries = new ArrayList<Map.Entry<Key, Value>>(Math.min(limit, 1024));
+		Cursor c = cursor();
+		long r = (long) rank(lo) + offset;
+		if (r < size() && c.seekRank((int) r))
+			while (c.valid() && hi.compareTo(c.key()) >= 0 && entries.size() < limit) {
+				entries.add(c.entry());
+				c.next();
+			}
+		Key next = c.valid() && hi.compareTo(c.key()) >= 0 ? c.key() : null;
+		return new Page(entries, next);
+	}
+
+	// one page of a range, see page()
+	public class Page {
+		private final List<Map.Entry<Key, Value>> entries;
+		private final Key next;
+
+		private Page(List<Map.Entry<Key, Value>> entries, Key next) {
+			this.entries = entries;
+			this.next = next;
+		}
+
+		// the entries of this page, in key order
+		public List<Map.Entry<Key, Value>> entries() { return entries; }
+
+		// where the next page starts; null if this is the last one
+		public Key next() { return next; }
+	}
+
+	/*************************************************************************
+	 *  Cursor
+	 *
+	 *  A position in the tree kept as the path from the root down to the
+	 *  current node, so it uses O(height) memory and next() / prev() take
+	 *  amortized O(1). A cursor that walks off either end is no longer
+	 *  valid and has to be positioned again with one of the seeks.
+	 *************************************************************************/
+
+	// a cursor that is not positioned yet
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	public class Cursor {
+		private Node[] stack = (Node[]) new RedBlackBST.Node[16];
+		private int depth;     // nodes on stack; the current node is the last
+		private int rank;      // rank of the current key
+		private int expected = modCount;
+
+		private void push(Node x) {
+			if (depth == stack.length) stack = Arrays.copyOf(stack, 2 * depth);
+			stack[depth++] = x;
+		}
+
+		private void checkMod() {
+			if (modCount != expected) throw new ConcurrentModificationException();
+		}
+
+		private Node current() {
+			checkMod();
+			if (depth == 0) throw new NoSuchElementException("cursor is not on a key");
+			return stack[depth-1];
+		}
+
+		// is the cursor on a key?
+		public boolean valid() {
+			checkMod();
+			return depth > 0;
+		}
+
+		// the current key
+		public Key key() { return current().key; }
+
+		// the current value
+		public Value value() { return current().val; }
+
+		// the current key and value
+		public Map.Entry<Key, Value> entry() {
+			Node x = current();
+			return new AbstractMap.SimpleImmutableEntry<Key, Value>(x.key, x.val);
+		}
+
+		// number of keys less than the current key
+		public int rank() {
+			current();
+			return rank;
+		}
+
+		// go to the smallest key >= key; false if there is none
+		public boolean seek(Key key) {
+			expected = modCount;
+			depth = 0;
+			rank = 0;
+			int keep = 0;   // the stack up to the last node >= key
+			for (Node x = root; x != null; ) {
+				push(x);
+				int cmp = key.compareTo(x.key);
+				if (cmp <= 0) {
+					keep = depth;
+					if (cmp == 0) { rank += size(x.left); break; }
+					x = x.left;
+				}
+				else {
+					rank += 1 + size(x.left);
+					x = x.right;
+				}
+			}
+			depth = keep;
+			return depth > 0;
+		}
+
+		// go to the key of rank r; false if r is out of range
+		public boolean seekRank(int r) {
+			expected = modCount;
+			depth = 0;
+			if (r < 0 || r >= size()) return false;
+			rank = r;
+			Node x = root;
+			while (true) {
+				push(x);
+				int t = size(x.left);
+				if      (r < t) x = x.left;
+				else if (r > t) { r -= t + 1; x = x.right; }
+				else            return true;
+			}
+		}
+
+		// go to the smallest key; false if the tree is empty
+		public boolean seekFirst() { return seekRank(0); }
+
+		// go to the largest key; false if the tree is empty
+		public boolean seekLast() { return seekRank(size() - 1); }
+
+		// go to the next key; false if there is none
+		public boolean next() {
+			Node x = current();
+			rank++;
+			if (x.right != null) {
+				for (x = x.right; x != null; x = x.left) push(x);
+				return true;
+			}
+			// up to the first node reached from its left child
+			for (depth--; depth > 0 && stack[depth-1].right == x; depth--)
+				x = stack[depth-1];
+			return depth > 0;
+		}
+
+		// go to the previous key; false if there is none
+		public boolean prev() {
+			Node x = current();
+			rank--;
+			if (x.left != null) {
+				for (x = x.left; x != null; x = x.right) push(x);
+				return true;
+			}
+			// up to the first node reached from its right child
+			for (depth--; depth > 0 && stack[depth-1].left == x; depth--)
+				x = stack[depth-1];
+			return depth > 0;
+		}
+	}
+
+	// Walks a cursor over [lo, hi] or over the first k keys from either
+	// end, seeking on the first call
+	private class RangeIterator implements Iterator<Key> {
+		private final Cursor c = new Cursor();
+		private final Key lo, hi;        // null for a k-key walk
+		private final boolean backward;
+		private int remaining;           // keys still to return
+		private boolean started;
+		private Node x;                  // the next node; null at the end
+
+		RangeIterator(Key lo, Key hi) {
+			this.lo = lo;
+			this.hi = hi;
+			this.backward = false;
+			this.remaining = Integer.MAX_VALUE;
+		}
+
+		RangeIterator(int k, boolean backward) {
+			this.lo = null;
+			this.hi = null;
+			this.backward = backward;
+			this.remaining = k;
+		}
+
+		// the node under the cursor if it is still in the range
+		private Node current() {
+			if (c.depth == 0) return null;
+			Node y = c.stack[c.depth-1];
+			return hi == null || hi.compareTo(y.key) >= 0 ? y : null;
+		}
+
+		public boolean hasNext() {
+			if (!started) {
+				started = true;
+				if (remaining == 0)  return false;
+				if (lo != null)      c.seek(lo);
+				else if (backward)   c.seekLast();
+				else                 c.seekFirst();
+				x = current();
+			}
+			return x != null;
+		}
+
+		Node nextNode() {
+			if (!hasNext()) throw new NoSuchElementException();
+			Node y = x;
+			if (--remaining == 0) x = null;
+			else {
+				if (backward) c.prev();
+				else          c.next();
+				x = current();
+			}
+			return y;
+		}
+
+		public Key next() {
+			return nextNode().key;
+		}
+	}
+
 	/*************************************************************************
 	 *  Check integrity of red-black BST data structure
 	 *************************************************************************/
@@ -516,7 +851,9 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		if (!isRankConsistent()) StdOut.println("Ranks not consistent");
 		if (!is23())             StdOut.println("Not a 2-3 tree");
 		if (!isBalanced())       StdOut.println("Not balanced");
-		return isBST() && isSizeConsistent() && isRankConsistent() && is23() && isBalanced();
+		if (!isAggConsistent())  StdOut.println("Aggregates not consistent");
+		return isBST() && isSizeConsistent() && isRankConsistent() && is23() && isBalanced()
+				&& isAggConsistent();
 	}
 
 	// does this binary tree satisfy symmetric order?
@@ -543,6 +880,17 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
 		return isSizeConsistent(x.left) && isSizeConsistent(x.right);
 	}
 
+	// are the aggregates correct? (true without a monoid)
+	private boolean isAggConsistent() { return monoid == null || isAggConsistent(root); }
+	private boolean isAggConsistent(Node x) {
+		if (x == null) return true;
+		Value a = x.val;
+		if (x.left  != null) a = monoid.combine(x.left.agg, a);
+		if (x.right != null) a = monoid.combine(a, x.right.agg);
+		if (!Objects.equals(a, x.agg)) return false;
+		return isAggConsistent(x.left) && isAggConsistent(x.right);
+	}
+
 	// check that ranks are consistent
 	private boolean isRankConsistent() {
 		for (int i = 0; i < size(); i++)
@@ -0,0 +1,264 @@
+/*************************************************************************
+ *  Compilation:  javac RobinHoodHashST.java
+ *
+ *  Symbol table implementation with Robin Hood linear probing.
+ *
+ *  Same API as LinearProbingHashST. Every slot also stores its displacement,
+ *  the distance of the entry from its home slot. On insert an entry that is
+ *  further from home takes the slot of one that is closer ("rob the rich"),
+ *  so displacements stay small and even. A search can stop as soon as it has
+ *  probed further than the entry in the current slot: had the key been in
+ *  the table it would have been placed there.
+ *
+ *************************************************************************/
+import java.util.*;
+
+public class RobinHoodHashST<Key extends Comparable<Key>, Value>{
+    private static final int INIT_CAPACITY = 16;
+    private int N;           // number of key-value pairs in the symbol table
+    private int M;           // size of linear probing table
+    private Key[] keys;      // the keys
+    private Value[] vals;    // the values
+    private int[] dist;      // displacement of the entry in each slot from its home slot
+
+    // create an empty hash table - use 16 as default size
+    public RobinHoodHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    // create Robin Hood hash table of given capacity
+    public RobinHoodHashST(int capacity) {
+        M = capacity;
+        keys = (Key[])   new Comparable[M];
+        vals = (Value[]) new Object[M];
+        dist = new int[M];
+    }
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        return N;
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(Key key) {
+        return search(key) != null;
+    }
+
+    // hash function for keys - returns value between 0 and M-1
+    private int hash(Key key) {
+        return (key.hashCode()  & 0x7fffffff ) % M;
+    }
+
+    // rehash every key into a table with the given number of slots
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        Value[] oldVals = vals;
+        M = capacity;
+        keys = (Key[])   new Comparable[M];
+        vals = (Value[]) new Object[M];
+        dist = new int[M];
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != null) place(oldKeys[i], oldVals[i]);
+    }
+
+    // slot of the key, -1 if it is not there
+    private int slot(Key key) {
+        int d = 0;
+        for (int i = hash(key); keys[i] != null && d <= dist[i]; i = (i + 1) % M, d++)
+            if (keys[i].equals(key))
+                return i;
+        return -1;
+    }
+
+    // place a key that is known to be absent, displacing richer entries
+    private void place(Key key, Value val) {
+        int d = 0;
+        for (int i = hash(key); ; i = (i + 1) % M, d++) {
+            if (keys[i] == null) {
+                keys[i] = key;
+                vals[i] = val;
+                dist[i] = d;
+                return;
+            }
+            if (dist[i] < d) {
+                Key   k = keys[i]; keys[i] = key; key = k;
+                Value v = vals[i]; vals[i] = val; val = v;
+                int   t = dist[i]; dist[i] = d;   d   = t;
+            }
+        }
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(Key key, Value val) {
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        int i = slot(key);
+        if (i >= 0) { vals[i] = val; return; }
+
+        // double table size if 75% full
+        if (4 * (N + 1) > 3 * M) resize(2 * M);
+
+        place(key, val);
+        N++;
+    }
+
+    // return the value associated with the given key, null if no such value
+    public Value search(Key key) {
+        int i = slot(key);
+        return i >= 0 ? vals[i] : null;
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(Key key) {
+        int i = slot(key);
+        if (i < 0) return;
+
+        // backward shift: pull the rest of the cluster one slot closer to
+        // home until an empty slot or an entry already at home
+        int j = (i + 1) % M;
+        while (keys[j] != null && dist[j] > 0) {
+            keys[i] = keys[j];
+            vals[i] = vals[j];
+            dist[i] = dist[j] - 1;
+            i = j;
+            j = (j + 1) % M;
+        }
+        keys[i] = null;
+        vals[i] = null;
+        dist[i] = 0;
+        N--;
+    }
+
+    /*************************************************************************
+     *  Displacement statistics
+     *************************************************************************/
+
+    // largest distance of any entry from its home slot
+    public int maxDisplacement() {
+        int max = 0;
+        for (int i = 0; i < M; i++)
+            if (keys[i] != null && dist[i] > max) max = dist[i];
+        return max;
+    }
+
+    // average distance of the entries from their home slots
+    public double meanDisplacement() {
+        if (N == 0) return 0.0;
+        long total = 0;
+        for (int i = 0; i < M; i++)
+            if (keys[i] != null) total += dist[i];
+        return (double) total / N;
+    }
+
+    /*************************************************************************
+     *  Ordered symbol table methods - all of them scan the slot array
+     *************************************************************************/
+
+    // return all of the keys as in Iterable
+    public Iterable<Key> keys() {
+        Queue<Key> queue = new Queue<Key>();
+        for (int i = 0; i < M; i++)
+            if (keys[i] != null) queue.enqueue(keys[i]);
+        return queue;
+    }
+
+    public int rank(Key key){
+    	int rank = 0;
+    	for (int i = 0; i < M; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (key.compareTo(keys[i]) > 0)
+    			rank++;
+    	}
+    	return rank;
+    }
+
+    public Key getValByRank(int k){
+    	if (k >= N || k < 0)
+    		return null;
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k+1);
+    	for (int i = 0; i < M; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() <= k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
+    		{
+    			heap.delMax();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	return heap.returnMax();
+    }
+
+    public Iterable<Key> kSmallest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kSmallestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kSmallestKeys;
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k);
+    	for (int i = 0; i < M; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMax().compareTo(keys[i]) > 0)
+    		{
+    			heap.delMax();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kSmallestKeys.enqueue(heap.delMax());
+    	return kSmallestKeys;
+    }
+
+    public Iterable<Key> kLargest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kLargestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kLargestKeys;
+    	MinHeap<Key> heap = new MinHeap<Key>(k);
+    	for (int i = 0; i < M; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (heap.size() < k)
+    			heap.insert(keys[i]);
+    		else if (heap.returnMin().compareTo(keys[i]) < 0)
+    		{
+    			heap.delMin();
+    			heap.insert(keys[i]);
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kLargestKeys.enqueue(heap.delMin());
+    	return kLargestKeys;
+    }
+
+    public int rangeCount(Key low, Key high){
+    	if (high.compareTo(low) < 0)
+    		return 0;
+    	int count = 0;
+    	for (int i = 0; i < M; i++)
+    	{
+    		if (keys[i] == null)
+    			continue;
+    		if (low.compareTo(keys[i]) <= 0 && high.compareTo(keys[i]) >= 0)
+    			count++;
+    	}
+    	return count;
+    }
+}
@@ -0,0 +1,145 @@
+/*************************************************************************
+ *  Compilation:  javac Selection.java
+ *
+ *  Introselect for the order queries of the hash tables: the keys are
+ *  gathered into one array and partitioned around median-of-three pivots
+ *  (Quick.partition from Algorithms, 4th edition) until the wanted
+ *  rank is in place. Expected time is linear. A call that partitions
+ *  more than 2 lg n times sorts what is left instead, so the worst case
+ *  is O(n log n).
+ *
+ *  useSelection() decides between this and a bounded heap of k keys. The
+ *  heap needs no copy and, for small k, little more than one compare per
+ *  key, but each key that enters it costs log k. Selection costs about 3n
+ *  compares plus the copy whatever k is.
+ *
+ *************************************************************************/
+import java.util.*;
+
+class Selection
+{
+	private static final int CUTOFF = 16;        // ranges sorted by insertion sort
+	private static final int HEAP_FRACTION = 1024; // heap while k <= n / HEAP_FRACTION
+
+	// should the k extreme keys out of n be found by selection rather than a heap?
+	public static boolean useSelection(int k, int n)
+	{
+		return k > CUTOFF && (long) k * HEAP_FRACTION > n;
+	}
+
+	/*************************************************************************
+	 *  Comparable keys
+	 *************************************************************************/
+
+	// rearrange a[lo..hi) so that a[k] holds the key that belongs there in
+	// sorted order, with no larger key before it and no smaller one after
+	public static <Key extends Comparable<Key>> void select(Key[] a, int lo, int hi, int k)
+	{
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo));
+		hi--;
+		while (hi - lo >= CUTOFF)
+		{
+			if (depth-- == 0) { Arrays.sort(a, lo, hi + 1); return; }
+			medianToFront(a, lo, hi);
+			int j = partition(a, lo, hi);
+			if      (j > k) hi = j - 1;
+			else if (j < k) lo = j + 1;
+			else return;
+		}
+		insertionSort(a, lo, hi);
+	}
+
+	private static <Key extends Comparable<Key>> void medianToFront(Key[] a, int lo, int hi)
+	{
+		int mid = (lo + hi) >>> 1;
+		if (a[mid].compareTo(a[lo]) < 0) exch(a, mid, lo);
+		if (a[hi].compareTo(a[lo]) < 0)  exch(a, hi, lo);
+		if (a[hi].compareTo(a[mid]) < 0) exch(a, hi, mid);
+		exch(a, lo, mid);
+	}
+
+	// partition a[lo..hi] around a[lo], return its final index
+	private static <Key extends Comparable<Key>> int partition(Key[] a, int lo, int hi)
+	{
+		int i = lo, j = hi + 1;
+		Key v = a[lo];
+		while (true)
+		{
+			while (a[++i].compareTo(v) < 0) if (i == hi) break;
+			while (v.compareTo(a[--j]) < 0) if (j == lo) break;
+			if (i >= j) break;
+			exch(a, i, j);
+		}
+		exch(a, lo, j);
+		return j;
+	}
+
+	private static <Key extends Comparable<Key>> void insertionSort(Key[] a, int lo, int hi)
+	{
+		for (int i = lo + 1; i <= hi; i++)
+			for (int j = i; j > lo && a[j].compareTo(a[j-1]) < 0; j--)
+				exch(a, j, j-1);
+	}
+
+	private static void exch(Object[] a, int i, int j)
+	{
+		Object t = a[i]; a[i] = a[j]; a[j] = t;
+	}
+
+	/*************************************************************************
+	 *  int keys
+	 *************************************************************************/
+
+	// same as above for a primitive array
+	public static void select(int[] a, int lo, int hi, int k)
+	{
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(hi - lo));
+		hi--;
+		while (hi - lo >= CUTOFF)
+		{
+			if (depth-- == 0) { Arrays.sort(a, lo, hi + 1); return; }
+			medianToFront(a, lo, hi);
+			int j = partition(a, lo, hi);
+			if      (j > k) hi = j - 1;
+			else if (j < k) lo = j + 1;
+			else return;
+		}
+		insertionSort(a, lo, hi);
+	}
+
+	private static void medianToFront(int[] a, int lo, int hi)
+	{
+		int mid = (lo + hi) >>> 1;
+		if (a[mid] < a[lo]) exch(a, mid, lo);
+		if (a[hi] < a[lo])  exch(a, hi, lo);
+		if (a[hi] < a[mid]) exch(a, hi, mid);
+		exch(a, lo, mid);
+	}
+
+	private static int partition(int[] a, int lo, int hi)
+	{
+		int i = lo, j = hi + 1;
+		int v = a[lo];
+		while (true)
+		{
+			while (a[++i] < v) if (i == hi) break;
+			while (v < a[--j]) if (j == lo) break;
+			if (i >= j) break;
+			exch(a, i, j);
+		}
+		exch(a, lo, j);
+		return j;
+	}
+
+	private static void insertionSort(int[] a, int lo, int hi)
+	{
+		for (int i = lo + 1; i <= hi; i++)
+			for (int j = i; j > lo && a[j] < a[j-1]; j--)
+				exch(a, j, j-1);
+	}
+
+	private static void exch(int[] a, int i, int j)
+	{
+		int t = a[i]; a[i] = a[j]; a[j] = t;
+	}
+}
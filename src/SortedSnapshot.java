@@ -0,0 +1,228 @@
+/*************************************************************************
+ *  Compilation:  javac SortedSnapshot.java
+ *
+ *  Sorted copy of a set of keys for answering order queries by binary
+ *  search, used by LinearProbingHashST in SNAPSHOT mode.
+ *
+ *  The snapshot array is built once per epoch with a parallel sort. Writes
+ *  made after that are recorded in two small sorted delta buffers: keys
+ *  added since the snapshot and snapshot keys removed since. Every query
+ *  combines the snapshot with the deltas. Once the deltas pass a limit
+ *  they are merged into a new snapshot array in one linear pass and a
+ *  new epoch starts.
+ *
+ *************************************************************************/
+import java.util.*;
+
+class SortedSnapshot<Key extends Comparable<Key>>
+{
+	private static final int MIN_DELTA = 64;
+	private static final int MAX_DELTA = 4096;
+
+	private Key[] keys;          // snapshot, sorted
+	private int n;               // number of keys in the snapshot
+	private Key[] added;         // keys inserted since the snapshot, sorted
+	private int addedN;
+	private Key[] removed;       // snapshot keys deleted since the snapshot, sorted
+	private int removedN;
+	private int epoch;           // number of times the snapshot was (re)built
+
+	// take ownership of keys[0..n) and sort it
+	public SortedSnapshot(Key[] keys, int n)
+	{
+		Arrays.parallelSort(keys, 0, n);
+		this.keys = keys;
+		this.n = n;
+		added = (Key[]) new Comparable[MIN_DELTA];
+		removed = (Key[]) new Comparable[MIN_DELTA];
+		epoch = 1;
+	}
+
+	public int size()
+	{
+		return n - removedN + addedN;
+	}
+
+	public int epoch()
+	{
+		return epoch;
+	}
+
+	// number of writes not folded into the snapshot yet
+	public int deltaSize()
+	{
+		return addedN + removedN;
+	}
+
+	/*************************************************************************
+	 *  Writes
+	 *************************************************************************/
+
+	// record a key that was not in the set before
+	public void add(Key key)
+	{
+		int i = lowerBound(removed, removedN, key);
+		if (i < removedN && removed[i].compareTo(key) == 0)
+			removedN = removeAt(removed, removedN, i);
+		else
+		{
+			added = insertAt(added, addedN, lowerBound(added, addedN, key), key);
+			addedN++;
+		}
+		if (deltaSize() > deltaLimit()) fold();
+	}
+
+	// record a key that was in the set
+	public void remove(Key key)
+	{
+		int i = lowerBound(added, addedN, key);
+		if (i < addedN && added[i].compareTo(key) == 0)
+			addedN = removeAt(added, addedN, i);
+		else
+		{
+			removed = insertAt(removed, removedN, lowerBound(removed, removedN, key), key);
+			removedN++;
+		}
+		if (deltaSize() > deltaLimit()) fold();
+	}
+
+	private int deltaLimit()
+	{
+		return Math.min(MAX_DELTA, Math.max(MIN_DELTA, n >>> 6));
+	}
+
+	// merge both deltas into a new snapshot array
+	private void fold()
+	{
+		Key[] merged = (Key[]) new Comparable[Math.max(1, size())];
+		int m = 0, a = 0, r = 0;
+		for (int i = 0; i < n; i++)
+		{
+			if (r < removedN && removed[r].compareTo(keys[i]) == 0) { r++; continue; }
+			while (a < addedN && added[a].compareTo(keys[i]) < 0) merged[m++] = added[a++];
+			merged[m++] = keys[i];
+		}
+		while (a < addedN) merged[m++] = added[a++];
+		keys = merged;
+		n = m;
+		Arrays.fill(added, 0, addedN, null);
+		Arrays.fill(removed, 0, removedN, null);
+		addedN = 0;
+		removedN = 0;
+		epoch++;
+	}
+
+	/*************************************************************************
+	 *  Queries
+	 *************************************************************************/
+
+	// number of keys less than key (or less than or equal, if inclusive)
+	public int countBelow(Key key, boolean inclusive)
+	{
+		if (inclusive)
+			return upperBound(keys, n, key) - upperBound(removed, removedN, key) + upperBound(added, addedN, key);
+		return lowerBound(keys, n, key) - lowerBound(removed, removedN, key) + lowerBound(added, addedN, key);
+	}
+
+	// the key of rank k, 0 <= k < size()
+	public Key select(int k)
+	{
+		// an added key is the answer if exactly k keys are below it
+		for (int j = 0; j < addedN; j++)
+			if (j + lowerBound(keys, n, added[j]) - lowerBound(removed, removedN, added[j]) == k)
+				return added[j];
+
+		// otherwise it is the first live snapshot key with k keys below it;
+		// the number of keys below keys[i] never decreases with i
+		int lo = 0, hi = n;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (countBelow(keys[mid], false) < k) lo = mid + 1;
+			else                                  hi = mid;
+		}
+		while (lo < n && isRemoved(keys[lo])) lo++;
+		return lo < n ? keys[lo] : null;
+	}
+
+	// the k smallest keys in ascending order
+	public Queue<Key> kSmallest(int k)
+	{
+		Queue<Key> queue = new Queue<Key>();
+		int i = 0, a = 0;
+		while (queue.size() < k)
+		{
+			if (i < n && isRemoved(keys[i])) { i++; continue; }
+			if (a < addedN && (i == n || added[a].compareTo(keys[i]) < 0)) queue.enqueue(added[a++]);
+			else queue.enqueue(keys[i++]);
+		}
+		return queue;
+	}
+
+	// the k largest keys in descending order
+	public Queue<Key> kLargest(int k)
+	{
+		Queue<Key> queue = new Queue<Key>();
+		int i = n - 1, a = addedN - 1;
+		while (queue.size() < k)
+		{
+			if (i >= 0 && isRemoved(keys[i])) { i--; continue; }
+			if (a >= 0 && (i < 0 || added[a].compareTo(keys[i]) > 0)) queue.enqueue(added[a--]);
+			else queue.enqueue(keys[i--]);
+		}
+		return queue;
+	}
+
+	private boolean isRemoved(Key key)
+	{
+		int r = lowerBound(removed, removedN, key);
+		return r < removedN && removed[r].compareTo(key) == 0;
+	}
+
+	/*************************************************************************
+	 *  Sorted array helpers
+	 *************************************************************************/
+
+	// first index in a[0..size) whose key is >= key
+	private static <Key extends Comparable<Key>> int lowerBound(Key[] a, int size, Key key)
+	{
+		int lo = 0, hi = size;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (a[mid].compareTo(key) < 0) lo = mid + 1;
+			else                           hi = mid;
+		}
+		return lo;
+	}
+
+	// first index in a[0..size) whose key is > key
+	private static <Key extends Comparable<Key>> int upperBound(Key[] a, int size, Key key)
+	{
+		int lo = 0, hi = size;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (a[mid].compareTo(key) <= 0) lo = mid + 1;
+			else                            hi = mid;
+		}
+		return lo;
+	}
+
+	// insert key at position i of a[0..size), growing the array if needed
+	private static <Key> Key[] insertAt(Key[] a, int size, int i, Key key)
+	{
+		if (size == a.length) a = Arrays.copyOf(a, 2 * a.length);
+		System.arraycopy(a, i, a, i + 1, size - i);
+		a[i] = key;
+		return a;
+	}
+
+	// remove position i of a[0..size), return the new size
+	private static <Key> int removeAt(Key[] a, int size, int i)
+	{
+		System.arraycopy(a, i + 1, a, i, size - i - 1);
+		a[--size] = null;
+		return size;
+	}
+}
@@ -0,0 +1,447 @@
+/*************************************************************************
+ *  Compilation:  javac StripedLinearProbingHashST.java
+ *
+ *  Thread-safe linear probing hash table with lock striping.
+ *
+ *  The power-of-two slot array is cut into S equal stripes of consecutive
+ *  slots, each with its own lock. An operation locks the stripe of the
+ *  key's home slot. Whenever its probe walks into the next stripe it
+ *  locks that one too, and it keeps every lock until it is done. So the
+ *  run of slots from the home slot to the current slot cannot change
+ *  under it, even when the run crosses stripe boundaries. This matters
+ *  for backward-shift deletion, which moves entries across a boundary.
+ *
+ *  Locks are waited for in increasing stripe order only. A probe that
+ *  has wrapped from the last stripe to the first only tries the locks
+ *  after that, and on failure drops all its locks and starts over. That
+ *  rules out deadlock.
+ *
+ *  Resizing and the order queries lock all stripes in order, so the
+ *  order queries see one consistent state of the table.
+ *
+ *************************************************************************/
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+public class StripedLinearProbingHashST<Key extends Comparable<Key>, Value>{
+    private static final int INIT_CAPACITY = 16;
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int MIN_STRIPE_SLOTS = 16;
+
+    private final ReentrantLock[] locks;   // one per stripe
+    private final int[] counts;            // keys whose home slot is in each stripe, guarded by its lock
+    private final int S;                   // number of stripes, a power of two
+    private volatile Table<Key, Value> table;
+
+    // one generation of the slot arrays; replaced as a whole by resize
+    private static class Table<Key, Value> {
+        final Key[] keys;
+        final Value[] vals;
+        final int M;        // number of slots, a power of two
+        final int mask;     // M - 1
+        final int shift;    // stripe of slot i is i >>> shift
+
+        Table(int M, int S) {
+            this.M = M;
+            this.mask = M - 1;
+            this.shift = Integer.numberOfTrailingZeros(M) - Integer.numberOfTrailingZeros(S);
+            keys = (Key[])   new Comparable[M];
+            vals = (Value[]) new Object[M];
+        }
+    }
+
+    // create an empty hash table - use 16 as default size
+    public StripedLinearProbingHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a hash table of given capacity with the default number of stripes
+    public StripedLinearProbingHashST(int capacity) {
+        this(capacity, DEFAULT_STRIPES);
+    }
+
+    // create a hash table of given capacity; both numbers are rounded up
+    // to powers of two, and every stripe gets at least 16 slots
+    public StripedLinearProbingHashST(int capacity, int stripes) {
+        S = powerOfTwo(stripes);
+        locks = new ReentrantLock[S];
+        for (int s = 0; s < S; s++) locks[s] = new ReentrantLock();
+        counts = new int[S];
+        table = new Table<Key, Value>(Math.max(powerOfTwo(capacity), S * MIN_STRIPE_SLOTS), S);
+    }
+
+    private static int powerOfTwo(int n) {
+        return n <= 2 ? 2 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    // number of stripes
+    public int stripes() {
+        return S;
+    }
+
+    // current number of slots
+    public int capacity() {
+        return table.M;
+    }
+
+    // hash code of the key, scrambled (MurmurHash3 finalizer)
+    private static int mix(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /*************************************************************************
+     *  Locking
+     *************************************************************************/
+
+    // the stripes held by one operation: first..last, cyclically
+    private final class Probe {
+        final Table<Key, Value> t;
+        final int first;
+        int last;
+
+        Probe(Table<Key, Value> t, int first) {
+            this.t = t;
+            this.first = first;
+            this.last = first;
+        }
+
+        // make sure the stripe of slot i is held; i is the next slot of
+        // the walk, so it is in the last stripe or the one after it.
+        // Once the walk has wrapped around it holds a stripe above the one
+        // it needs, so it only tries the lock; false if that fails
+        boolean cover(int i) {
+            int s = i >>> t.shift;
+            if (s == last) return true;
+            if (s > last && last >= first) locks[s].lock();
+            else if (!locks[s].tryLock()) return false;
+            last = s;
+            return true;
+        }
+
+        void release() {
+            for (int s = first; ; s = (s + 1) & (S - 1)) {
+                locks[s].unlock();
+                if (s == last) break;
+            }
+        }
+    }
+
+    // lock the stripe of the key's home slot in the current table
+    private Probe begin(int h) {
+        while (true) {
+            Table<Key, Value> t = table;
+            int s = (h & t.mask) >>> t.shift;
+            locks[s].lock();
+            if (t == table) return new Probe(t, s);
+            locks[s].unlock();    // resized meanwhile
+        }
+    }
+
+    private void lockAll() {
+        for (int s = 0; s < S; s++) locks[s].lock();
+    }
+
+    private void unlockAll() {
+        for (int s = S - 1; s >= 0; s--) locks[s].unlock();
+    }
+
+    /*************************************************************************
+     *  Symbol table methods
+     *************************************************************************/
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        lockAll();
+        try {
+            return sizeLocked();
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(Key key) {
+        return search(key) != null;
+    }
+
+    // return the value associated with the given key, null if no such value
+    public Value search(Key key) {
+        int h = mix(key);
+        retry:
+        while (true) {
+            Probe p = begin(h);
+            Table<Key, Value> t = p.t;
+            try {
+                for (int i = h & t.mask; ; i = (i + 1) & t.mask) {
+                    if (!p.cover(i)) continue retry;
+                    if (t.keys[i] == null) return null;
+                    if (t.keys[i].equals(key)) return t.vals[i];
+                }
+            }
+            finally {
+                p.release();
+            }
+        }
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(Key key, Value val) {
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        int h = mix(key);
+        boolean grow;
+        Table<Key, Value> t;
+        retry:
+        while (true) {
+            Probe p = begin(h);
+            t = p.t;
+            try {
+                int i;
+                for (i = h & t.mask; ; i = (i + 1) & t.mask) {
+                    if (!p.cover(i)) continue retry;
+                    if (t.keys[i] == null) break;
+                    if (t.keys[i].equals(key)) { t.vals[i] = val; return; }
+                }
+                t.keys[i] = key;
+                t.vals[i] = val;
+                counts[p.first]++;
+
+                // double table size if this stripe's home keys fill half of it
+                grow = 2 * counts[p.first] > t.M / S;
+                break;
+            }
+            finally {
+                p.release();
+            }
+        }
+        if (grow) resize(t);
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(Key key) {
+        int h = mix(key);
+        retry:
+        while (true) {
+            Probe p = begin(h);
+            Table<Key, Value> t = p.t;
+            try {
+                int i;
+                for (i = h & t.mask; ; i = (i + 1) & t.mask) {
+                    if (!p.cover(i)) continue retry;
+                    if (t.keys[i] == null) return;
+                    if (t.keys[i].equals(key)) break;
+                }
+
+                // lock the stripes of the rest of the cluster before
+                // moving anything, so a retry finds the table unchanged
+                for (int j = (i + 1) & t.mask; ; j = (j + 1) & t.mask) {
+                    if (!p.cover(j)) continue retry;
+                    if (t.keys[j] == null) break;
+                }
+
+                // backward shift
+                int hole = i;
+                for (int j = (i + 1) & t.mask; t.keys[j] != null; j = (j + 1) & t.mask) {
+                    int home = mix(t.keys[j]) & t.mask;
+                    if (((j - home) & t.mask) < ((j - hole) & t.mask)) continue;
+                    t.keys[hole] = t.keys[j];
+                    t.vals[hole] = t.vals[j];
+                    hole = j;
+                }
+                t.keys[hole] = null;
+                t.vals[hole] = null;
+                counts[p.first]--;
+                return;
+            }
+            finally {
+                p.release();
+            }
+        }
+    }
+
+    // rehash every key into a table of twice the size, unless another
+    // thread already replaced the table t
+    private void resize(Table<Key, Value> t) {
+        lockAll();
+        try {
+            if (table != t) return;
+            Table<Key, Value> bigger = new Table<Key, Value>(2 * t.M, S);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < t.M; i++) {
+                if (t.keys[i] == null) continue;
+                int j;
+                for (j = mix(t.keys[i]) & bigger.mask; bigger.keys[j] != null; j = (j + 1) & bigger.mask) ;
+                bigger.keys[j] = t.keys[i];
+                bigger.vals[j] = t.vals[i];
+                counts[(mix(t.keys[i]) & bigger.mask) >>> bigger.shift]++;
+            }
+            table = bigger;
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    /*************************************************************************
+     *  Order queries - all of them lock every stripe and scan the table
+     *************************************************************************/
+
+    // return all of the keys as in Iterable
+    public Iterable<Key> keys() {
+        lockAll();
+        try {
+            Table<Key, Value> t = table;
+            Queue<Key> queue = new Queue<Key>();
+            for (int i = 0; i < t.M; i++)
+                if (t.keys[i] != null) queue.enqueue(t.keys[i]);
+            return queue;
+        }
+        finally {
+            unlockAll();
+        }
+    }
+
+    public int rank(Key key){
+    	lockAll();
+    	try {
+    		Table<Key, Value> t = table;
+    		int rank = 0;
+    		for (int i = 0; i < t.M; i++)
+    			if (t.keys[i] != null && key.compareTo(t.keys[i]) > 0)
+    				rank++;
+    		return rank;
+    	}
+    	finally {
+    		unlockAll();
+    	}
+    }
+
+    public Key getValByRank(int k){
+    	lockAll();
+    	try {
+    		Table<Key, Value> t = table;
+    		int N = sizeLocked();
+    		if (k > N || k < 0 || N == 0)
+    			return null;
+    		// k == N answers the largest key, as LinearProbingHashST does
+    		k = Math.min(k, N - 1);
+    		MaxHeap<Key> heap = new MaxHeap<Key>(k+1);
+    		for (int i = 0; i < t.M; i++)
+    		{
+    			if (t.keys[i] == null)
+    				continue;
+    			if (heap.size() <= k)
+    				heap.insert(t.keys[i]);
+    			else if (heap.returnMax().compareTo(t.keys[i]) > 0)
+    			{
+    				heap.delMax();
+    				heap.insert(t.keys[i]);
+    			}
+    		}
+    		return heap.returnMax();
+    	}
+    	finally {
+    		unlockAll();
+    	}
+    }
+
+    public Iterable<Key> kSmallest(int k){
+    	lockAll();
+    	try {
+    		Table<Key, Value> t = table;
+    		if (k < 0 || k > sizeLocked())
+    			return null;
+    		Queue<Key> kSmallestKeys = new Queue<Key>();
+    		if (k == 0)
+    			return kSmallestKeys;
+    		MaxHeap<Key> heap = new MaxHeap<Key>(k);
+    		for (int i = 0; i < t.M; i++)
+    		{
+    			if (t.keys[i] == null)
+    				continue;
+    			if (heap.size() < k)
+    				heap.insert(t.keys[i]);
+    			else if (heap.returnMax().compareTo(t.keys[i]) > 0)
+    			{
+    				heap.delMax();
+    				heap.insert(t.keys[i]);
+    			}
+    		}
+    		while (!heap.isEmpty())
+    			kSmallestKeys.enqueue(heap.delMax());
+    		return kSmallestKeys;
+    	}
+    	finally {
+    		unlockAll();
+    	}
+    }
+
+    public Iterable<Key> kLargest(int k){
+    	lockAll();
+    	try {
+    		Table<Key, Value> t = table;
+    		if (k < 0 || k > sizeLocked())
+    			return null;
+    		Queue<Key> kLargestKeys = new Queue<Key>();
+    		if (k == 0)
+    			return kLargestKeys;
+    		MinHeap<Key> heap = new MinHeap<Key>(k);
+    		for (int i = 0; i < t.M; i++)
+    		{
+    			if (t.keys[i] == null)
+    				continue;
+    			if (heap.size() < k)
+    				heap.insert(t.keys[i]);
+    			else if (heap.returnMin().compareTo(t.keys[i]) < 0)
+    			{
+    				heap.delMin();
+    				heap.insert(t.keys[i]);
+    			}
+    		}
+    		while (!heap.isEmpty())
+    			kLargestKeys.enqueue(heap.delMin());
+    		return kLargestKeys;
+    	}
+    	finally {
+    		unlockAll();
+    	}
+    }
+
+    public int rangeCount(Key low, Key high){
+    	if (high.compareTo(low) < 0)
+    		return 0;
+    	lockAll();
+    	try {
+    		Table<Key, Value> t = table;
+    		int count = 0;
+    		for (int i = 0; i < t.M; i++)
+    			if (t.keys[i] != null && low.compareTo(t.keys[i]) <= 0 && high.compareTo(t.keys[i]) >= 0)
+    				count++;
+    		return count;
+    	}
+    	finally {
+    		unlockAll();
+    	}
+    }
+
+    // number of keys, with every stripe already locked
+    private int sizeLocked() {
+        int n = 0;
+        for (int s = 0; s < S; s++) n += counts[s];
+        return n;
+    }
+}
@@ -0,0 +1,383 @@
+/*************************************************************************
+ *  Compilation:  javac SwissHashST.java
+ *
+ *  Symbol table implementation with a Swiss table: open addressing over
+ *  groups of 8 slots with one control byte per slot.
+ *
+ *  Same API as LinearProbingHashST. The mixed hash is split in two: the
+ *  high 25 bits (h1) pick the first group, and the low 7 bits (h2) are
+ *  stored in the control byte of a full slot. A control byte is one of
+ *
+ *      0xxxxxxx   full, x = h2 of the key in the slot
+ *      10000000   EMPTY
+ *      11111110   DELETED (tombstone)
+ *
+ *  The 8 control bytes of a group are packed in one long. A lookup
+ *  compares all 8 against h2 with a few word operations (SWAR) and calls
+ *  equals() only on matches. False matches happen for 1 slot in 128. The
+ *  lookup stops at the first group that has an EMPTY byte. Groups are
+ *  probed quadratically: g, g+1, g+3, g+6, ...
+ *
+ *  The table grows when 7/8 of the slots are full or deleted. A delete
+ *  only leaves a tombstone when its group has no EMPTY byte, since only
+ *  then can a probe run past the group.
+ *
+ *************************************************************************/
+import java.util.*;
+
+public class SwissHashST<Key extends Comparable<Key>, Value>{
+    private static final int INIT_CAPACITY = 16;
+    private static final int GROUP = 8;
+
+    private static final long EMPTY   = 0x80L;
+    private static final long DELETED = 0xFEL;
+    private static final long LSB = 0x0101010101010101L;   // lowest bit of every byte
+    private static final long MSB = 0x8080808080808080L;   // highest bit of every byte
+
+    private int N;           // number of key-value pairs in the symbol table
+    private int M;           // number of slots, a power of two and at least GROUP
+    private int groupMask;   // M / GROUP - 1
+    private int growthLeft;  // EMPTY slots that may still be filled before a resize
+    private long[] ctrl;     // control bytes, GROUP per long, slot g*GROUP+j in byte j of ctrl[g]
+    private Key[] keys;      // the keys
+    private Value[] vals;    // the values
+
+    // create an empty hash table - use 16 as default size
+    public SwissHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    // create a Swiss table that holds at least capacity keys without growing
+    public SwissHashST(int capacity) {
+        init(slotsFor(capacity));
+    }
+
+    // slots needed for n keys at 7/8 load, rounded up to a power of two
+    private static int slotsFor(int n) {
+        long slots = Math.max(GROUP, (8L * n + 6) / 7);
+        return (int) Math.min(1 << 30, Long.highestOneBit(slots - 1) << 1);
+    }
+
+    private void init(int capacity) {
+        M = capacity;
+        groupMask = M / GROUP - 1;
+        growthLeft = M - M / 8;
+        ctrl = new long[M / GROUP];
+        Arrays.fill(ctrl, EMPTY * LSB);
+        keys = (Key[])   new Comparable[M];
+        vals = (Value[]) new Object[M];
+    }
+
+    // return the number of key-value pairs in the symbol table
+    public int size() {
+        return N;
+    }
+
+    // is the symbol table empty?
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // current number of slots
+    public int capacity() {
+        return M;
+    }
+
+    // does a key-value pair with the given key exist in the symbol table?
+    public boolean contains(Key key) {
+        return search(key) != null;
+    }
+
+    // hash code of the key, scrambled (MurmurHash3 finalizer)
+    private static int mix(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /*************************************************************************
+     *  Control words (SWAR)
+     *************************************************************************/
+
+    // high bit of every byte of word equal to b; may also flag a byte
+    // just above a real match, so callers must check the key
+    private static long matchByte(long word, long b) {
+        long x = word ^ (b * LSB);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    // high bit of every EMPTY byte (high bit set, bit 1 clear)
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSB;
+    }
+
+    // high bit of every EMPTY or DELETED byte
+    private static long matchFree(long word) {
+        return word & MSB;
+    }
+
+    // high bit of every full byte
+    private static long matchFull(long word) {
+        return ~word & MSB;
+    }
+
+    private void setCtrl(int i, long b) {
+        int g = i / GROUP, shift = (i % GROUP) * 8;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | (b << shift);
+    }
+
+    // slot in group g of the lowest byte flagged in mask
+    private static int slotOf(int g, long mask) {
+        return g * GROUP + (Long.numberOfTrailingZeros(mask) >>> 3);
+    }
+
+    /*************************************************************************
+     *  Symbol table methods
+     *************************************************************************/
+
+    // slot of the key, -1 if it is not there
+    private int slot(Key key, int h) {
+        long h2 = h & 0x7F;
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; g = (g + step++) & groupMask) {
+            long word = ctrl[g];
+            for (long m = matchByte(word, h2); m != 0; m &= m - 1) {
+                int i = slotOf(g, m);
+                if (key.equals(keys[i])) return i;
+            }
+            if (matchEmpty(word) != 0 || step > groupMask) return -1;
+        }
+    }
+
+    // first EMPTY or DELETED slot on the probe sequence of h
+    private int freeSlot(int h) {
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; g = (g + step++) & groupMask) {
+            long m = matchFree(ctrl[g]);
+            if (m != 0) return slotOf(g, m);
+        }
+    }
+
+    // rebuild with the given number of slots, dropping all tombstones
+    private void resize(int capacity) {
+        long[] oldCtrl = ctrl;
+        Key[] oldKeys = keys;
+        Value[] oldVals = vals;
+        init(capacity);
+        for (int g = 0; g < oldCtrl.length; g++) {
+            for (long m = matchFull(oldCtrl[g]); m != 0; m &= m - 1) {
+                int i = slotOf(g, m);
+                int h = mix(oldKeys[i]);
+                int j = freeSlot(h);
+                setCtrl(j, h & 0x7F);
+                keys[j] = oldKeys[i];
+                vals[j] = oldVals[i];
+                growthLeft--;
+            }
+        }
+    }
+
+    // insert the key-value pair into the symbol table
+    public void insert(Key key, Value val) {
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        int h = mix(key);
+        int i = slot(key, h);
+        if (i >= 0) { vals[i] = val; return; }
+
+        i = freeSlot(h);
+        if (growthLeft == 0 && (ctrl[i / GROUP] >>> ((i % GROUP) * 8) & 0xFF) == EMPTY) {
+            // out of EMPTY slots: double if more than half of them are
+            // live keys, else rebuild at the same size to drop tombstones
+            resize(2 * N >= M - M / 8 ? 2 * M : M);
+            i = freeSlot(h);
+        }
+        if ((ctrl[i / GROUP] >>> ((i % GROUP) * 8) & 0xFF) == EMPTY) growthLeft--;
+        setCtrl(i, h & 0x7F);
+        keys[i] = key;
+        vals[i] = val;
+        N++;
+    }
+
+    // return the value associated with the given key, null if no such value
+    public Value search(Key key) {
+        int i = slot(key, mix(key));
+        return i >= 0 ? vals[i] : null;
+    }
+
+    // delete the key (and associated value) from the symbol table
+    public void delete(Key key) {
+        int i = slot(key, mix(key));
+        if (i < 0) return;
+        keys[i] = null;
+        vals[i] = null;
+        N--;
+
+        // a group with an EMPTY byte ends every probe that reaches it,
+        // so its slot can become EMPTY again
+        if (matchEmpty(ctrl[i / GROUP]) != 0) {
+            setCtrl(i, EMPTY);
+            growthLeft++;
+        }
+        else setCtrl(i, DELETED);
+    }
+
+    // fraction of the slots holding a key
+    public double loadFactor() {
+        return (double) N / M;
+    }
+
+    /*************************************************************************
+     *  Ordered symbol table methods - all of them scan the full slots,
+     *  found 8 at a time from the control words
+     *************************************************************************/
+
+    // return all of the keys as in Iterable
+    public Iterable<Key> keys() {
+        Queue<Key> queue = new Queue<Key>();
+        for (int g = 0; g < ctrl.length; g++)
+            for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+                queue.enqueue(keys[slotOf(g, m)]);
+        return queue;
+    }
+
+    // copy the keys into a new array
+    private Key[] gather() {
+        Key[] a = (Key[]) new Comparable[N];
+        int n = 0;
+        for (int g = 0; g < ctrl.length; g++)
+            for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+                a[n++] = keys[slotOf(g, m)];
+        return a;
+    }
+
+    public int rank(Key key){
+    	int rank = 0;
+    	for (int g = 0; g < ctrl.length; g++)
+    		for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+    			if (key.compareTo(keys[slotOf(g, m)]) > 0)
+    				rank++;
+    	return rank;
+    }
+
+    public Key getValByRank(int k){
+    	if (k >= N || k < 0)
+    		return null;
+    	if (Selection.useSelection(Math.min(k + 1, N - k), N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, k);
+    		return a[k];
+    	}
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k+1);
+    	for (int g = 0; g < ctrl.length; g++)
+    	{
+    		for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+    		{
+    			Key key = keys[slotOf(g, m)];
+    			if (heap.size() <= k)
+    				heap.insert(key);
+    			else if (heap.returnMax().compareTo(key) > 0)
+    			{
+    				heap.delMax();
+    				heap.insert(key);
+    			}
+    		}
+    	}
+    	return heap.returnMax();
+    }
+
+    // the k smallest keys, largest first (the order of LinearProbingHashST)
+    public Iterable<Key> kSmallest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kSmallestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kSmallestKeys;
+    	if (Selection.useSelection(k, N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, k - 1);
+    		Arrays.sort(a, 0, k);
+    		for (int i = k - 1; i >= 0; i--)
+    			kSmallestKeys.enqueue(a[i]);
+    		return kSmallestKeys;
+    	}
+    	MaxHeap<Key> heap = new MaxHeap<Key>(k);
+    	for (int g = 0; g < ctrl.length; g++)
+    	{
+    		for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+    		{
+    			Key key = keys[slotOf(g, m)];
+    			if (heap.size() < k)
+    				heap.insert(key);
+    			else if (heap.returnMax().compareTo(key) > 0)
+    			{
+    				heap.delMax();
+    				heap.insert(key);
+    			}
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kSmallestKeys.enqueue(heap.delMax());
+    	return kSmallestKeys;
+    }
+
+    // the k largest keys, smallest first (the order of LinearProbingHashST)
+    public Iterable<Key> kLargest(int k){
+    	if (k < 0 || k > N)
+    		return null;
+    	Queue<Key> kLargestKeys = new Queue<Key>();
+    	if (k == 0)
+    		return kLargestKeys;
+    	if (Selection.useSelection(k, N))
+    	{
+    		Key[] a = gather();
+    		Selection.select(a, 0, N, N - k);
+    		Arrays.sort(a, N - k, N);
+    		for (int i = N - k; i < N; i++)
+    			kLargestKeys.enqueue(a[i]);
+    		return kLargestKeys;
+    	}
+    	MinHeap<Key> heap = new MinHeap<Key>(k);
+    	for (int g = 0; g < ctrl.length; g++)
+    	{
+    		for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+    		{
+    			Key key = keys[slotOf(g, m)];
+    			if (heap.size() < k)
+    				heap.insert(key);
+    			else if (heap.returnMin().compareTo(key) < 0)
+    			{
+    				heap.delMin();
+    				heap.insert(key);
+    			}
+    		}
+    	}
+    	while (!heap.isEmpty())
+    		kLargestKeys.enqueue(heap.delMin());
+    	return kLargestKeys;
+    }
+
+    public int rangeCount(Key low, Key high){
+    	if (high.compareTo(low) < 0)
+    		return 0;
+    	int count = 0;
+    	for (int g = 0; g < ctrl.length; g++)
+    	{
+    		for (long m = matchFull(ctrl[g]); m != 0; m &= m - 1)
+    		{
+    			Key key = keys[slotOf(g, m)];
+    			if (low.compareTo(key) <= 0 && high.compareTo(key) >= 0)
+    				count++;
+    		}
+    	}
+    	return count;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares BPlusTree with RedBlackBST on the same random Integer keys:
+ *  building a tree of TESTSIZE keys, then QUERIES searches, ranks,
+ *  range scans of SCAN keys from a random start, and deletions, and
+ *  the heap each tree holds afterwards (measured as in TestIntBST).
+ *
+ *************************************************************************/
+public class TestBPlusTree{
+
+    private static final int QUERIES = 100000;   // enough calls for the JIT to compile both trees
+    private static final int SCAN = 100;         // keys read per range scan
+    private static int TESTSIZE = 0;
+    private static int[] dataset;
+    private static int[] queries;
+    static double startTest, endTest;
+    static long sink;                            // keeps the scans from being optimized away
+
+    // heap in use after a collection
+    private static long usedHeap(){
+    	Runtime rt = Runtime.getRuntime();
+    	for (int i = 0; i < 3; i++) System.gc();
+    	return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static String testRedBlack(){
+
+    	long before = usedHeap();
+
+    	RedBlackBST<Integer, Integer> rbt = new RedBlackBST<Integer, Integer>();
+
+    	String row = "| RedBlackBST\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) rbt.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	long bytes = usedHeap() - before;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.search(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.rank(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) {
+    		int n = 0;
+    		for (int key : rbt.keys(queries[i], Integer.MAX_VALUE)) {
+    			sink += key;
+    			if (++n == SCAN) break;
+    		}
+    	}
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.delete(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	return row + String.format(" %.1f \t\t| %d \t|", (double) bytes / TESTSIZE, rbt.height());
+    }
+
+    public static String testBPlus(){
+
+    	long before = usedHeap();
+
+    	BPlusTree<Integer, Integer> bpt = new BPlusTree<Integer, Integer>();
+
+    	String row = "| BPlusTree\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) bpt.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	long bytes = usedHeap() - before;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) bpt.search(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) bpt.rank(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) {
+    		int n = 0;
+    		for (int key : bpt.keys(queries[i], Integer.MAX_VALUE)) {
+    			sink += key;
+    			if (++n == SCAN) break;
+    		}
+    	}
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) bpt.delete(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	return row + String.format(" %.1f \t\t| %d \t|", (double) bytes / TESTSIZE, bpt.height());
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	queries = new int[QUERIES];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+    	for (int i = 0; i < QUERIES; i++) queries[i] = dataset[rand.nextInt(TESTSIZE)];
+
+    	// one untimed round of each to warm up the JIT
+    	testRedBlack();
+    	testBPlus();
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("---------------- B+ Tree vs Red Black Tree -----------------");
+    	System.out.println("| Time(ns)\t| Insertion\t| Search\t| Rank\t\t| Scan " + SCAN + "\t| Deletion\t| Bytes/key\t| Height\t|");
+    	System.out.println(testRedBlack());
+    	System.out.println(testBPlus());
+    	System.out.format("TESTSIZE is %d \n", TESTSIZE);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestBPlusTree(int size) {
+        TESTSIZE = size;
+        testall();
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares the batched calls of IntIntLinearProbingHash (insertAll,
+ *  searchAll, deleteAll) with the same work done one key at a time.
+ *  The keys are random, so with 10^6 or more of them nearly every home
+ *  slot is a cache miss; the batched calls overlap those misses. Both
+ *  sides start from a default-sized table and grow the same way. Half of
+ *  the searches are for keys that are probably not there, and deletion
+ *  removes half of the keys.
+ *
+ *************************************************************************/
+public class TestBatch{
+
+    private static int TESTSIZE = 0;
+    private static int[] dataset;
+    private static int[] queries;
+    private static int[] victims;
+    private static int[] out;
+    static double startTest, endTest;
+
+    // one table built and queried a key at a time; returns a checksum of
+    // the search results so both sides can be compared
+    public static long testSingle(double[] time){
+
+    	IntIntLinearProbingHash iph = new IntIntLinearProbingHash();
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) iph.insert(dataset[i], i);
+    	endTest = System.nanoTime();
+    	time[0] = (endTest-startTest)/TESTSIZE;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) out[i] = iph.search(queries[i]);
+    	endTest = System.nanoTime();
+    	time[1] = (endTest-startTest)/TESTSIZE;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < victims.length; i++) iph.delete(victims[i]);
+    	endTest = System.nanoTime();
+    	time[2] = (endTest-startTest)/victims.length;
+
+    	return checksum(iph);
+    }
+
+    // the same work through the batched calls
+    public static long testBatched(double[] time){
+
+    	IntIntLinearProbingHash iph = new IntIntLinearProbingHash();
+    	int[] vals = new int[TESTSIZE];
+    	for (int i = 0; i < TESTSIZE; i++) vals[i] = i;
+
+    	startTest = System.nanoTime();
+    	iph.insertAll(dataset, vals);
+    	endTest = System.nanoTime();
+    	time[0] = (endTest-startTest)/TESTSIZE;
+
+    	startTest = System.nanoTime();
+    	iph.searchAll(queries, out);
+    	endTest = System.nanoTime();
+    	time[1] = (endTest-startTest)/TESTSIZE;
+
+    	startTest = System.nanoTime();
+    	iph.deleteAll(victims);
+    	endTest = System.nanoTime();
+    	time[2] = (endTest-startTest)/victims.length;
+
+    	return checksum(iph);
+    }
+
+    private static long checksum(IntIntLinearProbingHash iph){
+    	long sum = iph.size();
+    	for (int i = 0; i < TESTSIZE; i++) sum = 31 * sum + out[i];
+    	return sum;
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	queries = new int[TESTSIZE];
+    	victims = new int[TESTSIZE / 2];
+    	out = new int[TESTSIZE];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+    	for (int i = 0; i < TESTSIZE; i++)
+    		queries[i] = (i & 1) == 0 ? dataset[rand.nextInt(TESTSIZE)] : rand.nextInt();
+    	for (int i = 0; i < victims.length; i++) victims[i] = dataset[rand.nextInt(TESTSIZE)];
+
+    	double[] single = new double[3];
+    	double[] batched = new double[3];
+
+    	// one untimed round of each to warm up the JIT
+    	testSingle(single);
+    	testBatched(batched);
+
+    	long a = testSingle(single);
+    	long b = testBatched(batched);
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("------------- Batched vs Single-Key int Hash Table ---------");
+    	System.out.println("| Time(ns/key)\t\t| Insertion\t| Search\t| Deletion\t|");
+    	System.out.format("| One key per call\t| %.2f \t| %.2f \t| %.2f \t|\n", single[0], single[1], single[2]);
+    	System.out.format("| insertAll/searchAll\t| %.2f \t| %.2f \t| %.2f \t|\n", batched[0], batched[1], batched[2]);
+    	System.out.format("| Speedup\t\t| %.2fx \t| %.2fx \t| %.2fx \t|\n",
+    			single[0] / batched[0], single[1] / batched[1], single[2] / batched[2]);
+    	System.out.format("TESTSIZE is %d, results %s\n", TESTSIZE, a == b ? "match" : "DIFFER");
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestBatch(int size) {
+        TESTSIZE = size;
+        testall();
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Execution:    java TestClusterDeletion [clusters] [rounds]
+ *
+ *  Measures LinearProbingHashST.delete against the length of the cluster
+ *  the deleted key sits in. Integer.hashCode() is the identity, so the keys
+ *  base, base+1, ..., base+L-1 land in L consecutive slots and form one
+ *  cluster of length L. Every round deletes the head of each cluster (the
+ *  worst case: the whole cluster is walked) and then puts it back untimed.
+ *  The second column does the same with TOMBSTONE deletion, which only
+ *  marks the slot and should not depend on the cluster length.
+ *
+ *************************************************************************/
+public class TestClusterDeletion{
+
+    static double startTest, endTest;
+
+    public static double testDeletion(int clusters, int length, int rounds, LinearProbingHashST.Deletion deletion){
+
+    	// leave a gap of 3 * length empty slots after every cluster
+    	int stride = 4 * length;
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(clusters * stride);
+
+    	lphs.setDeletion(deletion);
+
+    	Integer[] heads = new Integer[clusters];
+
+    	for (int c = 0; c < clusters; c++){
+
+    		heads[c] = c * stride;
+
+    		for (int i = 0; i < length; i++) lphs.insert(c * stride + i, i);
+
+    	}
+
+    	double total = 0;
+
+    	for (int r = 0; r < rounds; r++){
+
+    		startTest = System.nanoTime();
+
+    		for (int c = 0; c < clusters; c++) lphs.delete(heads[c]);
+
+    		endTest = System.nanoTime();
+
+    		total += endTest - startTest;
+
+    		for (int c = 0; c < clusters; c++) lphs.insert(heads[c], 0);
+    	}
+
+    	return total / ((double) clusters * rounds);
+    }
+
+    public static String testDeletion(int clusters, int length, int rounds){
+
+    	return String.format("| %6d\t| %10.2f\t| %10.2f\t|", length,
+    			testDeletion(clusters, length, rounds, LinearProbingHashST.Deletion.BACKWARD_SHIFT),
+    			testDeletion(clusters, length, rounds, LinearProbingHashST.Deletion.TOMBSTONE));
+    }
+
+    /***********************************************************************
+     *  Test client.
+     ***********************************************************************/
+    public static void main(String[] args) {
+    	int clusters = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    	int rounds   = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    	System.out.println("--------------- D E L E T E  vs  C L U S T E R -------------");
+    	System.out.println("| Cluster\t| Delete(ns)\t| Tombstone(ns)\t|");
+
+    	// one untimed pass to warm up the JIT
+    	testDeletion(clusters, 64, rounds);
+
+    	for (int length = 1; length <= 1024; length *= 2)
+    		System.out.println(testDeletion(clusters, length, rounds));
+
+    	System.out.format("%d clusters, %d rounds\n", clusters, rounds);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+}
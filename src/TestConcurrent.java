@@ -0,0 +1,133 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/*************************************************************************
+ *  Multi-threaded throughput at 1, 2, ... THREADS threads of
+ *  StripedLinearProbingHashST, one LinearProbingHashST behind a single
+ *  lock, LockFreeIntIntHash and java.util.concurrent.ConcurrentHashMap.
+ *  All four tables start with TESTSIZE keys; every thread then runs OPS
+ *  operations on random keys of twice that range: 90% search, 5% insert,
+ *  5% delete. The figures are millions of operations per second over all
+ *  threads.
+ *
+ *************************************************************************/
+public class TestConcurrent{
+
+    private static int TESTSIZE = 0;
+    private static int THREADS = 0;
+    private static final int OPS = 1000000;
+
+    // the operations under test, so all tables run the same loop
+    private interface Ops {
+        void insert(int key, int val);
+        boolean search(int key);
+        void delete(int key);
+    }
+
+    private static Ops striped(){
+    	final StripedLinearProbingHashST<Integer, Integer> st = new StripedLinearProbingHashST<Integer, Integer>(2 * TESTSIZE);
+    	return new Ops() {
+    		public void insert(int key, int val) { st.insert(key, val); }
+    		public boolean search(int key) { return st.search(key) != null; }
+    		public void delete(int key) { st.delete(key); }
+    	};
+    }
+
+    private static Ops locked(){
+    	final LinearProbingHashST<Integer, Integer> st = new LinearProbingHashST<Integer, Integer>(2 * TESTSIZE);
+    	return new Ops() {
+    		public synchronized void insert(int key, int val) { st.insert(key, val); }
+    		public synchronized boolean search(int key) { return st.search(key) != null; }
+    		public synchronized void delete(int key) { st.delete(key); }
+    	};
+    }
+
+    private static Ops lockFree(){
+    	final LockFreeIntIntHash st = new LockFreeIntIntHash(2 * TESTSIZE);
+    	return new Ops() {
+    		public void insert(int key, int val) { st.insert(key, val); }
+    		public boolean search(int key) { return st.search(key) != LockFreeIntIntHash.NO_VALUE; }
+    		public void delete(int key) { st.delete(key); }
+    	};
+    }
+
+    private static Ops concurrentHashMap(){
+    	final ConcurrentHashMap<Integer, Integer> st = new ConcurrentHashMap<Integer, Integer>(2 * TESTSIZE);
+    	return new Ops() {
+    		public void insert(int key, int val) { st.put(key, val); }
+    		public boolean search(int key) { return st.get(key) != null; }
+    		public void delete(int key) { st.remove(key); }
+    	};
+    }
+
+    public static double testThroughput(final Ops table, int threads) throws Exception{
+
+    	for (int i = 0; i < TESTSIZE; i++) table.insert(2 * i, i);
+
+    	final CountDownLatch start = new CountDownLatch(1);
+    	ExecutorService pool = Executors.newFixedThreadPool(threads);
+    	List<Future<Long>> done = new ArrayList<Future<Long>>();
+
+    	for (int t = 0; t < threads; t++){
+    		final int seed = t;
+    		done.add(pool.submit(new Callable<Long>() {
+    			public Long call() throws Exception {
+    				Random rand = new Random(seed);
+    				long hits = 0;
+    				start.await();
+    				for (int i = 0; i < OPS; i++){
+    					int key = rand.nextInt(2 * TESTSIZE);
+    					int op = rand.nextInt(100);
+    					if (op < 90) { if (table.search(key)) hits++; }
+    					else if (op < 95) table.insert(key, i);
+    					else table.delete(key);
+    				}
+    				return hits;
+    			}
+    		}));
+    	}
+
+    	double startTest = System.nanoTime();
+    	start.countDown();
+    	for (Future<Long> f : done) f.get();
+    	double endTest = System.nanoTime();
+    	pool.shutdown();
+
+    	return (double) threads * OPS / ((endTest - startTest) / 1000.0);
+    }
+
+    public static void testall() throws Exception{
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("---------------- Concurrent Hash Table Throughput ----------");
+    	System.out.println("| Threads\t| Striped\t| One lock\t| Lock-free\t| CHM\t\t| (Mops/s)");
+
+    	// one untimed round to warm up the JIT
+    	testThroughput(striped(), 1);
+    	testThroughput(locked(), 1);
+    	testThroughput(lockFree(), 1);
+    	testThroughput(concurrentHashMap(), 1);
+
+    	for (int threads = 1; threads <= THREADS; threads++)
+    		System.out.format("| %d\t\t| %8.2f\t| %8.2f\t| %8.2f\t| %8.2f\t|\n", threads,
+    			testThroughput(striped(), threads), testThroughput(locked(), threads),
+    			testThroughput(lockFree(), threads), testThroughput(concurrentHashMap(), threads));
+
+    	System.out.format("TESTSIZE is %d, %d operations per thread, %d cores \n", TESTSIZE, OPS, Runtime.getRuntime().availableProcessors());
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestConcurrent(int size, int threads) {
+        TESTSIZE = size;
+        THREADS = threads;
+        try {
+        	testall();
+        }
+        catch (Exception e) {
+        	System.out.format("Benchmark failed: %s\n", e);
+        }
+    }
+}
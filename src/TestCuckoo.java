@@ -0,0 +1,106 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares the lookup tail latency of CuckooHashST and
+ *  LinearProbingHashST. Every search is timed on its own and the sorted
+ *  times give the percentiles. Half the lookups are for keys in the
+ *  table and half for keys that are probably not there, which is where
+ *  long linear probing clusters hurt most. Each timing includes the cost
+ *  of two System.nanoTime calls (a few tens of ns), the same for both
+ *  tables. The linear probing table gets the given capacity, the cuckoo
+ *  table is sized for TESTSIZE keys and runs at up to 95% load.
+ *
+ *************************************************************************/
+public class TestCuckoo{
+
+    private static final int QUERIES = 200000;
+    private static int TESTSIZE = 0;
+    private static int CAPACITY = 0;
+    private static int[] dataset;
+    private static int[] queries;
+    private static long[] times = new long[QUERIES];
+    static double startTest, endTest;
+
+    // insertion average, then search percentiles from the timed lookups
+    private static String percentiles(String row){
+    	Arrays.sort(times);
+    	row = row + String.format(" %d \t| %d \t| %d \t| %d \t| %d \t|",
+    			times[QUERIES / 2], times[(int) (QUERIES * 0.99)],
+    			times[(int) (QUERIES * 0.999)], times[(int) (QUERIES * 0.9999)], times[QUERIES - 1]);
+    	return row;
+    }
+
+    public static String testLinearProbing(){
+
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+
+    	String row = "| Linear Probing\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) lphs.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	for (int i = 0; i < QUERIES; i++){
+    		long t = System.nanoTime();
+    		lphs.search(queries[i]);
+    		times[i] = System.nanoTime() - t;
+    	}
+
+    	return percentiles(row) + String.format(" %.1f%%\t|", 100.0 * lphs.size() / lphs.capacity());
+    }
+
+    public static String testCuckoo(){
+
+    	CuckooHashST<Integer, Integer> cuckoo = new CuckooHashST<Integer, Integer>(TESTSIZE);
+
+    	String row = "| Cuckoo (4-way)\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) cuckoo.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	for (int i = 0; i < QUERIES; i++){
+    		long t = System.nanoTime();
+    		cuckoo.search(queries[i]);
+    		times[i] = System.nanoTime() - t;
+    	}
+
+    	return percentiles(row) + String.format(" %.1f%% +%d\t|", 100.0 * cuckoo.size() / cuckoo.capacity(), cuckoo.stashSize());
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	queries = new int[QUERIES];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+
+    	for (int i = 0; i < QUERIES; i++)
+    		queries[i] = (i & 1) == 0 ? dataset[rand.nextInt(TESTSIZE)] : rand.nextInt();
+
+    	// one untimed round of each to warm up the JIT
+    	testLinearProbing();
+    	testCuckoo();
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("--------------- Cuckoo Hashing vs Linear Probing -----------");
+    	System.out.println("| Time(ns)\t\t| Insertion\t| Search p50\t| p99\t\t| p99.9\t\t| p99.99\t| max\t\t| Load (+stash)\t|");
+    	System.out.println(testLinearProbing());
+    	System.out.println(testCuckoo());
+    	System.out.format("TESTSIZE is %d, linear probing capacity %d, %d searches (half misses)\n", TESTSIZE, CAPACITY, QUERIES);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestCuckoo(int size, int capacity) {
+        TESTSIZE = size;
+        CAPACITY = capacity;
+        testall();
+    }
+}
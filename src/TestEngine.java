@@ -22,19 +22,53 @@ public class TestEngine{
     	}
     	double sum = 0;
         if (args.length < 2) {
-        	System.out.format("Usage: -Datastructure Datasize [hashtablesize] [-P percentage for each kind of operations]\n"
+        	System.out.format("Usage: -Datastructure Datasize [hashtablesize] [-S hashing probing] [-O ordermode] [-D deletion] [-P percentage for each kind of operations]\n"
         			+ "-H: Hash Table\n"
         			+ "-T: Balanced Search Tree\n"
+        			+ "-G: Balanced Search Tree insert, delete, deleteMin and deleteMax times\n"
+        			+ "-U: Balanced Search Tree for int keys in parallel arrays, compared with -T\n"
+        			+ "-B: B+ tree (64-way nodes, linked leaves) compared with -T\n"
+        			+ "-E: hash table order modes checked against SCAN on the same keys\n"
+        			+ "-I: Hash Table specialized for int keys (no boxing)\n"
+        			+ "-A: batched insertAll/searchAll/deleteAll of the int Hash Table against one key per call\n"
+        			+ "-R: Robin Hood Hash Table compared with linear probing\n"
+        			+ "-X: Off-heap int Hash Table compared with linear probing\n"
+        			+ "-W: Swiss Table (control bytes, 8-slot groups) compared with linear probing\n"
+        			+ "-K: Cuckoo Hash Table (2 choices, 4-slot buckets) search tail latency compared with linear probing\n"
+        			+ "-F: int Hash Table in a memory-mapped file, build vs reopen (Datasize file)\n"
+        			+ "-C: concurrent Hash Tables (striped, one lock, lock-free, CHM) throughput at 1..N threads (Datasize N)\n"
+        			+ "-S: hash table strategies, hashing MODULO|MASK|SEEDED and probing LINEAR|QUADRATIC|DOUBLE\n"
+        			+ "-O: how hash table order queries run, SCAN|INDEX|SNAPSHOT|PARALLEL\n"
+        			+ "-D: what hash table delete does, BACKWARD_SHIFT|TOMBSTONE\n"
         			+ "-P: [Insertion] [Deletion] [Search] [Rank] [Rangecount] [getValByRank]\n"
         			+ "Example: java test -T 10000\n"
-        			+ "Example: java Test -H 10000 20000 -P 10 10 10 20 20 30\n");
+        			+ "Example: java Test -H 10000 20000 -P 10 10 10 20 20 30\n"
+        			+ "Example: java Test -H 10000 20000 -S MASK QUADRATIC -O INDEX\n"
+        			+ "Example: java Test -H 10000 20000 -D TOMBSTONE -P 10 60 30 0 0 0\n");
         	return;
         }
         if (args[0].equals("-H")) {
             if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
-            if (args.length == 10 && args[3].equals("-P")){
+            int next = 3;
+            while (next < args.length) {
+            	if (args[next].equals("-S") && next + 2 < args.length) {
+            		TestHashing.HASHING = LinearProbingHashST.Hashing.valueOf(args[next+1].toUpperCase());
+            		TestHashing.PROBING = LinearProbingHashST.Probing.valueOf(args[next+2].toUpperCase());
+            		next += 3;
+            	}
+            	else if (args[next].equals("-O") && next + 1 < args.length) {
+            		TestHashing.ORDER = LinearProbingHashST.OrderMode.valueOf(args[next+1].toUpperCase());
+            		next += 2;
+            	}
+            	else if (args[next].equals("-D") && next + 1 < args.length) {
+            		TestHashing.DELETION = LinearProbingHashST.Deletion.valueOf(args[next+1].toUpperCase());
+            		next += 2;
+            	}
+            	else break;
+            }
+            if (args.length == next + 7 && args[next].equals("-P")){
             	for (int i = 0; i < 6; i++){
-            		percentage[i] = Double.parseDouble(args[4+i]);
+            		percentage[i] = Double.parseDouble(args[next+1+i]);
             	}
             	
             	new TestHashing(Integer.parseInt(args[1]), Integer.parseInt(args[2]), percentage);
@@ -42,6 +76,49 @@ public class TestEngine{
             /* Default  */
             else new TestHashing(Integer.parseInt(args[1]),Integer.parseInt(args[2]));
         }
+        else if (args[0].equals("-I")) {
+            if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
+            else new TestIntHashing(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        else if (args[0].equals("-G")) {
+            new TestTreeUpdates(Integer.parseInt(args[1]));
+        }
+        else if (args[0].equals("-U")) {
+            new TestIntBST(Integer.parseInt(args[1]));
+        }
+        else if (args[0].equals("-B")) {
+            new TestBPlusTree(Integer.parseInt(args[1]));
+        }
+        else if (args[0].equals("-E")) {
+            new TestOrderModes(Integer.parseInt(args[1]));
+        }
+        else if (args[0].equals("-A")) {
+            new TestBatch(Integer.parseInt(args[1]));
+        }
+        else if (args[0].equals("-R")) {
+            if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
+            else new TestRobinHood(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        else if (args[0].equals("-X")) {
+            if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
+            else new TestOffHeap(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        else if (args[0].equals("-W")) {
+            if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
+            else new TestSwiss(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        else if (args[0].equals("-K")) {
+            if (args.length < 3) System.out.format("You have to specify the hashtable size as well\n");
+            else new TestCuckoo(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        }
+        else if (args[0].equals("-F")) {
+            if (args.length < 3) System.out.format("You have to specify the file as well\n");
+            else new TestMapped(Integer.parseInt(args[1]), args[2]);
+        }
+        else if (args[0].equals("-C")) {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            new TestConcurrent(Integer.parseInt(args[1]), threads);
+        }
         else if (args[0].equals("-T")) {
             if (args.length == 9 && args[2].equals("-P"))  {
 
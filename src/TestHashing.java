@@ -20,7 +20,12 @@ public class TestHashing{
     private static int CAPACITY = 0;
     private static int hashSize = 0;
     private static double[] PERCENTAGE = new double[6];
+    static LinearProbingHashST.Hashing HASHING = LinearProbingHashST.Hashing.MODULO;
+    static LinearProbingHashST.Probing PROBING = LinearProbingHashST.Probing.LINEAR;
+    static LinearProbingHashST.OrderMode ORDER = LinearProbingHashST.OrderMode.SCAN;
+    static LinearProbingHashST.Deletion DELETION = LinearProbingHashST.Deletion.BACKWARD_SHIFT;
     static double startTest, endTest;
+    static long sink;                            // keeps the top-k reads from being optimized away
 
     public static String testInsertion(LinearProbingHashST<Integer, Integer> lphs){
 
@@ -87,12 +92,11 @@ public class TestHashing{
 
     public static String testKSmallest(LinearProbingHashST<Integer, Integer> lphs){
 
-    	
     	startTest =System.nanoTime();
 
     	for (int i = 0; i < 2000; i ++){
 
-    		lphs.kSmallest(k[i]);
+    		for (int key : lphs.kSmallest(k[i])) sink += key;   // read every key, lazy or not
 
     	}
 
@@ -102,12 +106,11 @@ public class TestHashing{
 
     public static String testKLargest(LinearProbingHashST<Integer, Integer> lphs){
 
-
     	startTest =System.nanoTime();
 
     	for (int i = 0; i < 2000; i ++){
 
-    		lphs.kLargest(k[i]);
+    		for (int key : lphs.kLargest(k[i])) sink += key;   // read every key, lazy or not
 
     	}
 
@@ -149,7 +152,11 @@ public class TestHashing{
 
     public static void testall(){
 
-    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY, HASHING, PROBING);
+
+    	lphs.setOrderMode(ORDER);
+
+    	lphs.setDeletion(DELETION);
 
     	dataset = new int[2000];
 
@@ -257,6 +264,10 @@ public class TestHashing{
 
     	System.out.format("TESTSIZE is %d \n", TESTSIZE);
 
+    	System.out.format("Hashing %s, probing %s, order queries %s \n", HASHING, PROBING, ORDER);
+
+    	System.out.format("Deletion %s, tombstones %d (%.2f%% of %d slots) \n", lphs.deletion(), lphs.tombstones(), 100 * lphs.tombstoneRatio(), lphs.capacity());
+
     	System.out.println("----------------------- E    N    D ------------------------");
 
 
@@ -264,7 +275,11 @@ public class TestHashing{
     }
 public static void testcombination(){
         
-		LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+		LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY, HASHING, PROBING);
+        
+        lphs.setOrderMode(ORDER);
+        
+        lphs.setDeletion(DELETION);
         
         dataset = new int[TESTSIZE];
         
@@ -340,6 +355,8 @@ public static void testcombination(){
 
         System.out.format("Time: %.2f(ms) \n", (endTest-startTest)/1000000);
         System.out.format("Testsize is %d\n", TESTSIZE);
+        System.out.format("Hashing %s, probing %s, order queries %s\n", HASHING, PROBING, ORDER);
+        System.out.format("Deletion %s, tombstones %d (%.2f%% of %d slots)\n", lphs.deletion(), lphs.tombstones(), 100 * lphs.tombstoneRatio(), lphs.capacity());
         
     }
     
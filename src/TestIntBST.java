@@ -0,0 +1,123 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares IntRedBlackBST with RedBlackBST<Integer, Integer>: building
+ *  a tree of TESTSIZE random keys, then QUERIES searches, ranks and
+ *  deletions, and the heap each tree holds afterwards. The footprint is
+ *  the growth of used heap across the build, after a System.gc() on each
+ *  side. That is only an estimate, but the gap between the trees is far
+ *  larger than the error.
+ *
+ *************************************************************************/
+public class TestIntBST{
+
+    private static final int QUERIES = 100000;   // enough calls for the JIT to compile both trees
+    private static int TESTSIZE = 0;
+    private static int[] dataset;
+    private static int[] queries;
+    static double startTest, endTest;
+
+    // heap in use after a collection
+    private static long usedHeap(){
+    	Runtime rt = Runtime.getRuntime();
+    	for (int i = 0; i < 3; i++) System.gc();
+    	return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static String testObjectTree(){
+
+    	long before = usedHeap();
+
+    	RedBlackBST<Integer, Integer> rbt = new RedBlackBST<Integer, Integer>();
+
+    	String row = "| RedBlackBST\t\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) rbt.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	long bytes = usedHeap() - before;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.search(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.rank(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) rbt.delete(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	return row + String.format(" %.1f \t\t| %d \t|", (double) bytes / TESTSIZE, rbt.size());
+    }
+
+    public static String testIntTree(){
+
+    	long before = usedHeap();
+
+    	IntRedBlackBST irb = new IntRedBlackBST();
+
+    	String row = "| IntRedBlackBST\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) irb.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	long bytes = usedHeap() - before;
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) irb.search(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) irb.rank(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < QUERIES; i++) irb.delete(queries[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/(double) QUERIES);
+
+    	return row + String.format(" %.1f \t\t| %d \t|", (double) bytes / TESTSIZE, irb.size());
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	queries = new int[QUERIES];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+    	for (int i = 0; i < QUERIES; i++) queries[i] = dataset[rand.nextInt(TESTSIZE)];
+
+    	// one untimed round of each to warm up the JIT
+    	testObjectTree();
+    	testIntTree();
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("------------- int Red Black Tree vs Red Black Tree ---------");
+    	System.out.println("| Time(ns)\t\t| Insertion\t| Search\t| Rank\t\t| Deletion\t| Bytes/key\t| Size\t\t|");
+    	System.out.println(testObjectTree());
+    	System.out.println(testIntTree());
+    	System.out.format("TESTSIZE is %d \n", TESTSIZE);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestIntBST(int size) {
+        TESTSIZE = size;
+        testall();
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.*;
+
+public class TestIntHashing{
+
+    private static int TESTSIZE = 0;
+    private static int[][] countDate;
+    private static int[] dataset;
+    private static int[] k;
+    private static int CAPACITY = 0;
+    static double startTest, endTest;
+
+    public static String testInsertion(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.insert(dataset[i], dataset[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f  ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testDeletion(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.delete(dataset[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testSearch(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.search(dataset[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testRank(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.rank(dataset[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testKSmallest(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.kSmallest(k[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f  ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testKLargest(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.kLargest(k[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testgetValByRank(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i++){
+
+    		iph.getValByRank(k[i]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static String testCount(IntIntLinearProbingHash iph){
+
+    	startTest =System.nanoTime();
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		iph.rangeCount(countDate[i][0],countDate[i][1]);
+
+    	}
+
+    	endTest =System.nanoTime();
+
+    	return String.format(" %.2f ", (endTest-startTest)/2000.0);
+    }
+
+    public static void testall(){
+
+    	IntIntLinearProbingHash iph = new IntIntLinearProbingHash(CAPACITY);
+
+    	dataset = new int[2000];
+
+    	countDate = new int[2000][2];
+
+    	k = new int[2000];
+
+        int TLOG = (int)(Math.log(TESTSIZE));
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	String rowOne = "| Unit Operation\t|" + " Insertion\t" + "|" + "Search\t\t" + "|" + "Rank\t\t" + "|" + "Deletion\t" + "|";
+
+    	String rowTwo = "|   Time(ms)\t\t|";
+
+    	String rowThree = "| Range Operation\t|" + " KSmallest\t" + "|" + " KLargest\t" + "|" + "RangeCount\t" + "|"+"GetVByRank\t" + "|";
+
+    	String rowFour = "|   Time(ms)\t\t|";
+
+    	for (int i = 0; i < TESTSIZE; i ++){
+
+    		int newElement = rand.nextInt();
+
+    		iph.insert(newElement, newElement);
+
+    	}
+
+    	for (int i = 0; i < 2000; i ++){
+
+    		dataset[i] = rand.nextInt();
+
+    		int l = rand.nextInt();
+
+    		int h = rand.nextInt();
+
+    		if (h < l){
+    			int temp = h;
+
+    			h = l;
+
+    			l = temp;
+    		}
+
+    		countDate[i][0] = l;
+
+    		countDate[i][1] = h;
+
+    		k[i] = rand.nextInt(TLOG) + TLOG;
+    	}
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("-------------------- Int Hash Table ------------------------");
+
+    	rowTwo = rowTwo + testInsertion(iph) + "\t|";
+
+    	rowTwo = rowTwo + testSearch(iph) + "\t|";
+
+    	rowTwo = rowTwo + testRank(iph) + "\t|";
+
+    	rowFour = rowFour + testKSmallest(iph) + "\t|";
+
+    	rowFour = rowFour + testKLargest(iph) + "\t|";
+
+    	rowFour = rowFour + testCount(iph) + "\t|";
+
+    	rowFour = rowFour +  testgetValByRank(iph) + "\t|";
+
+    	rowTwo = rowTwo + testDeletion(iph) + "\t|";
+
+    	System.out.println(rowOne + "\n" + rowTwo + "\n" + rowThree + "\n" + rowFour + "\n");
+
+    	System.out.format("TESTSIZE is %d, table has %d slots \n", TESTSIZE, iph.capacity());
+
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestIntHashing(int size, int capacity) {
+        TESTSIZE = size;
+        CAPACITY = capacity;
+        testall();
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/*************************************************************************
+ *  Builds a MappedIntIntHash of TESTSIZE random keys in a file, closes it,
+ *  and compares the build with reopening the file: the time to open it,
+ *  and the time of the first searches, which page the slots in lazily.
+ *  The file is deleted at the end.
+ *
+ *************************************************************************/
+public class TestMapped{
+
+    private static int TESTSIZE = 0;
+    private static String FILE;
+    private static int[] dataset;
+    private static int[] present;
+    static double startTest, endTest;
+
+    public static void testall() throws IOException{
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	present = new int[2000];
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+    	for (int i = 0; i < 2000; i++) present[i] = dataset[rand.nextInt(TESTSIZE)];
+
+    	Files.deleteIfExists(Paths.get(FILE));
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("----------------- Memory Mapped Hash Table -----------------");
+
+    	startTest = System.nanoTime();
+    	MappedIntIntHash mih = new MappedIntIntHash(FILE, 2 * TESTSIZE);
+    	for (int i = 0; i < TESTSIZE; i++) mih.insert(dataset[i], dataset[i]);
+    	mih.close();
+    	endTest = System.nanoTime();
+    	System.out.format("| Build and close\t| %10.2f ms\t|\n", (endTest-startTest)/1000000.0);
+
+    	startTest = System.nanoTime();
+    	mih = new MappedIntIntHash(FILE);
+    	endTest = System.nanoTime();
+    	System.out.format("| Reopen\t\t| %10.2f ms\t|\n", (endTest-startTest)/1000000.0);
+
+    	int found = 0;
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) if (mih.search(present[i]) == present[i]) found++;
+    	endTest = System.nanoTime();
+    	System.out.format("| First searches\t| %10.2f ns\t|\n", (endTest-startTest)/2000.0);
+
+    	System.out.format("%d of 2000 keys found after reopening, %d keys in %d slots\n", found, mih.size(), mih.capacity());
+    	mih.close();
+    	Files.deleteIfExists(Paths.get(FILE));
+
+    	System.out.format("TESTSIZE is %d, file %s \n", TESTSIZE, FILE);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestMapped(int size, String file) {
+        TESTSIZE = size;
+        FILE = file;
+        try {
+        	testall();
+        }
+        catch (IOException e) {
+        	System.out.format("Cannot use %s: %s\n", file, e.getMessage());
+        }
+    }
+}
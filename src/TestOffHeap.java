@@ -0,0 +1,121 @@
+import java.lang.management.*;
+import java.util.*;
+
+/*************************************************************************
+ *  Compares OffHeapIntIntHash with LinearProbingHashST<Integer, Integer>
+ *  on the same keys: insertion, search and rank time, plus the heap
+ *  in use after the build and the garbage collections the build caused.
+ *  Each table is dropped (the off-heap one closed) before the next one
+ *  is built. Large sizes need a big heap for the on-heap table (-Xmx)
+ *  and native memory for the off-heap one (-XX:MaxDirectMemorySize).
+ *
+ *************************************************************************/
+public class TestOffHeap{
+
+    private static int TESTSIZE = 0;
+    private static int CAPACITY = 0;
+    private static int[] dataset;
+    private static int[] present;
+    static double startTest, endTest;
+
+    // total collections and collection time (ms) so far
+    private static long[] gcTotals(){
+    	long count = 0, time = 0;
+    	for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()){
+    		count += Math.max(0, gc.getCollectionCount());
+    		time += Math.max(0, gc.getCollectionTime());
+    	}
+    	return new long[] { count, time };
+    }
+
+    private static double heapUsedMB(){
+    	System.gc();
+    	Runtime rt = Runtime.getRuntime();
+    	return (rt.totalMemory() - rt.freeMemory()) / (1024.0 * 1024.0);
+    }
+
+    public static String testOnHeap(){
+
+    	long[] gc = gcTotals();
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+
+    	String row = "| On heap\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) lphs.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+    	long[] after = gcTotals();
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.search(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 20; i++) lphs.rank(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/20.0/1000000.0);
+
+    	row = row + String.format(" %.1f \t| %d (%d ms)\t|", heapUsedMB(), after[0] - gc[0], after[1] - gc[1]);
+    	lphs = null;
+    	return row;
+    }
+
+    public static String testOffHeap(){
+
+    	long[] gc = gcTotals();
+    	String row = "| Off heap\t|";
+
+    	try (OffHeapIntIntHash ohh = new OffHeapIntIntHash(CAPACITY)) {
+
+    		startTest = System.nanoTime();
+    		for (int i = 0; i < TESTSIZE; i++) ohh.insert(dataset[i], dataset[i]);
+    		endTest = System.nanoTime();
+    		row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+    		long[] after = gcTotals();
+
+    		startTest = System.nanoTime();
+    		for (int i = 0; i < 2000; i++) ohh.search(present[i]);
+    		endTest = System.nanoTime();
+    		row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    		startTest = System.nanoTime();
+    		for (int i = 0; i < 20; i++) ohh.rank(present[i]);
+    		endTest = System.nanoTime();
+    		row = row + String.format(" %.2f \t|", (endTest-startTest)/20.0/1000000.0);
+
+    		row = row + String.format(" %.1f \t| %d (%d ms)\t|", heapUsedMB(), after[0] - gc[0], after[1] - gc[1]);
+    		row = row + String.format("\nNative memory: %.1f MB in %d slots", ohh.memoryUsed() / (1024.0 * 1024.0), ohh.capacity());
+    	}
+    	return row;
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	present = new int[2000];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+    	for (int i = 0; i < 2000; i++) present[i] = dataset[rand.nextInt(TESTSIZE)];
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("------------------ Off Heap vs On Heap ---------------------");
+    	System.out.println("| Table\t\t| Insert(ns)\t| Search(ns)\t| Rank(ms)\t| Heap(MB)\t| GCs in build\t|");
+    	System.out.println(testOnHeap());
+    	System.out.println(testOffHeap());
+    	System.out.format("TESTSIZE is %d, initial capacity %d \n", TESTSIZE, CAPACITY);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestOffHeap(int size, int capacity) {
+        TESTSIZE = size;
+        CAPACITY = capacity;
+        testall();
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Checks that every order mode of LinearProbingHashST answers exactly
+ *  what SCAN answers: the same rank, rangeCount and getValByRank
+ *  (including k == N), and kSmallest and kLargest with the same keys in
+ *  the same order. Both tables get the same TESTSIZE random keys, and
+ *  then a tenth of them are deleted so the modes also see writes after
+ *  their structures were built. PARALLEL is checked on a small table,
+ *  where it scans sequentially, and on one of FORK_JOIN slots, where it
+ *  runs on the fork/join pool.
+ *
+ *************************************************************************/
+public class TestOrderModes{
+
+    private static final LinearProbingHashST.OrderMode[] MODES = {
+    	LinearProbingHashST.OrderMode.INDEX,
+    	LinearProbingHashST.OrderMode.SNAPSHOT,
+    	LinearProbingHashST.OrderMode.PARALLEL
+    };
+    private static final int FORK_JOIN = 1 << 17;  // capacity from which PARALLEL queries run on the fork/join pool
+    private static final int QUERIES = 1000;     // rank and rangeCount probes per table
+    private static final int RANKS = 1000;       // getValByRank probes per table
+    private static int TESTSIZE = 0;
+    private static int[] dataset;
+    private static int[] queries;
+    static long checks, mismatches;
+
+    // count one comparison, and report it if the answers differ
+    private static void expect(String what, Object scan, Object mode){
+    	checks++;
+    	if (Objects.equals(scan, mode)) return;
+    	if (mismatches++ < 10) System.out.format("  %s: SCAN %s, got %s\n", what, shorten(scan), shorten(mode));
+    }
+
+    // an answer cut down to one printable line
+    private static String shorten(Object answer){
+    	String s = String.valueOf(answer);
+    	return s.length() <= 80 ? s : s.substring(0, 77) + "...";
+    }
+
+    // the keys of an order query as a list, or null if there is no answer
+    private static List<Integer> list(Iterable<Integer> keys){
+    	if (keys == null) return null;
+    	List<Integer> list = new ArrayList<Integer>();
+    	for (int key : keys) list.add(key);
+    	return list;
+    }
+
+    public static String compare(LinearProbingHashST.OrderMode mode, int capacity){
+
+    	LinearProbingHashST<Integer, Integer> scan = new LinearProbingHashST<Integer, Integer>(capacity);
+    	LinearProbingHashST<Integer, Integer> other = new LinearProbingHashST<Integer, Integer>(capacity);
+    	other.setOrderMode(mode);
+
+    	for (int i = 0; i < TESTSIZE; i++) {
+    		scan.insert(dataset[i], dataset[i]);
+    		other.insert(dataset[i], dataset[i]);
+    	}
+    	// query once so INDEX and SNAPSHOT have built their structures before the deletes
+    	other.getValByRank(0);
+    	for (int i = 0; i < TESTSIZE; i += 10) {
+    		scan.delete(dataset[i]);
+    		other.delete(dataset[i]);
+    	}
+
+    	checks = 0;
+    	mismatches = 0;
+    	int n = scan.size();
+    	expect("size", n, other.size());
+
+    	for (int i = 0; i < QUERIES; i++) {
+    		expect("rank(" + queries[i] + ")", scan.rank(queries[i]), other.rank(queries[i]));
+    		int lo = Math.min(queries[i], queries[QUERIES - 1 - i]);
+    		int hi = Math.max(queries[i], queries[QUERIES - 1 - i]);
+    		expect("rangeCount(" + lo + ", " + hi + ")", scan.rangeCount(lo, hi), other.rangeCount(lo, hi));
+    	}
+
+    	int[] ks = {-1, 0, 1, 2, 10, n / 2, n - 1, n, n + 1};
+    	for (int k = 0; k < n; k += Math.max(1, n / RANKS))
+    		expect("getValByRank(" + k + ")", scan.getValByRank(k), other.getValByRank(k));
+    	for (int k : ks)
+    		expect("getValByRank(" + k + ")", scan.getValByRank(k), other.getValByRank(k));
+
+    	for (int k : ks) {
+    		expect("kSmallest(" + k + ")", list(scan.kSmallest(k)), list(other.kSmallest(k)));
+    		expect("kLargest(" + k + ")", list(scan.kLargest(k)), list(other.kLargest(k)));
+    	}
+
+    	// the answers are copies: a write before they are read must not change or break them
+    	int few = Math.min(10, n);
+    	List<Integer> smallest = list(scan.kSmallest(few)), largest = list(scan.kLargest(few));
+    	Iterable<Integer> smallestKeys = other.kSmallest(few), largestKeys = other.kLargest(few);
+    	other.insert(-2, -2);
+    	other.insert(4 * TESTSIZE + 2, 0);
+    	try {
+    		expect("kSmallest(" + few + ") read after a write", smallest, list(smallestKeys));
+    		expect("kLargest(" + few + ") read after a write", largest, list(largestKeys));
+    	}
+    	catch (ConcurrentModificationException e) {
+    		expect("order query read after a write", null, e);
+    	}
+
+    	return String.format("| %s\t| %d \t| %d \t| %d \t|", mode, other.capacity(), checks, mismatches);
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	queries = new int[QUERIES];
+
+    	// keys and queries from the same narrow range, so queries hit present and absent keys
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt(4 * TESTSIZE);
+    	for (int i = 0; i < QUERIES; i++) queries[i] = rand.nextInt(4 * TESTSIZE + 2) - 1;
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("----------------- Order modes against SCAN -----------------");
+    	System.out.println("| Mode\t\t| Capacity\t| Checks\t| Mismatches\t|");
+    	for (LinearProbingHashST.OrderMode mode : MODES)
+    		System.out.println(compare(mode, 16));
+    	// below FORK_JOIN (unless TESTSIZE grows it past) PARALLEL falls back to SCAN; check the pool side too
+    	System.out.println(compare(LinearProbingHashST.OrderMode.PARALLEL, FORK_JOIN));
+    	System.out.format("TESTSIZE is %d \n", TESTSIZE);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestOrderModes(int size) {
+        TESTSIZE = size;
+        testall();
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares RobinHoodHashST with LinearProbingHashST on the same keys and
+ *  the same initial capacity: insertion, successful search, unsuccessful
+ *  search (keys that are probably not there, as QueryGenerator produces)
+ *  and deletion, plus the displacement statistics of the Robin Hood table.
+ *
+ *************************************************************************/
+public class TestRobinHood{
+
+    private static int TESTSIZE = 0;
+    private static int CAPACITY = 0;
+    private static int[] dataset;
+    private static int[] present;
+    private static int[] missing;
+    static double startTest, endTest;
+
+    public static String testLinearProbing(){
+
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+
+    	String row = "| Linear Probing\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) lphs.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.search(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.search(missing[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.delete(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	return row;
+    }
+
+    public static String testRobinHood(){
+
+    	RobinHoodHashST<Integer, Integer> rhhs = new RobinHoodHashST<Integer, Integer>(CAPACITY);
+
+    	String row = "| Robin Hood\t\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) rhhs.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) rhhs.search(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) rhhs.search(missing[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	String stats = String.format("\nDisplacement: max %d, mean %.3f (%d keys)", rhhs.maxDisplacement(), rhhs.meanDisplacement(), rhhs.size());
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) rhhs.delete(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	return row + stats;
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	present = new int[2000];
+    	missing = new int[2000];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+
+    	for (int i = 0; i < 2000; i++){
+    		present[i] = dataset[rand.nextInt(TESTSIZE)];
+    		missing[i] = rand.nextInt();
+    	}
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("---------------- Robin Hood vs Linear Probing --------------");
+    	System.out.println("| Time(ns)\t\t| Insertion\t| Search hit\t| Search miss\t| Deletion\t|");
+    	System.out.println(testLinearProbing());
+    	System.out.println(testRobinHood());
+    	System.out.format("TESTSIZE is %d, initial capacity %d \n", TESTSIZE, CAPACITY);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestRobinHood(int size, int capacity) {
+        TESTSIZE = size;
+        CAPACITY = capacity;
+        testall();
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Execution:    java TestScanKernels [max slots] [rounds]
+ *  With vectors: java --add-modules jdk.incubator.vector TestScanKernels
+ *
+ *  Times the rank and rangeCount kernels of IntScanKernels, the scalar
+ *  loops against IntScanKernels.best(), on random key arrays of 10^5 slots
+ *  up to max slots (default 10^7; 10^8 needs about -Xmx1g). Every size
+ *  runs a few untimed rounds first to warm up the JIT, and both kernels
+ *  must agree on every count.
+ *
+ *************************************************************************/
+public class TestScanKernels{
+
+    static double startTest, endTest;
+    static long sink;
+
+    public static double timeRank(IntScanKernels kernels, int[] keys, int[] bounds, int rounds){
+    	startTest = System.nanoTime();
+    	for (int r = 0; r < rounds; r++) sink += kernels.countLess(keys, 0, keys.length, bounds[r]);
+    	endTest = System.nanoTime();
+    	return (endTest - startTest) / rounds;
+    }
+
+    public static double timeRange(IntScanKernels kernels, int[] keys, int[] bounds, int rounds){
+    	startTest = System.nanoTime();
+    	for (int r = 0; r < rounds; r++)
+    		sink += kernels.countBetween(keys, 0, keys.length, Math.min(bounds[r], bounds[r+1]), Math.max(bounds[r], bounds[r+1]));
+    	endTest = System.nanoTime();
+    	return (endTest - startTest) / rounds;
+    }
+
+    public static String testSize(int slots, int rounds){
+
+    	Random rand = new Random(slots);
+    	int[] keys = new int[slots];
+    	for (int i = 0; i < slots; i++) keys[i] = rand.nextInt();
+    	int[] bounds = new int[rounds + 1];
+    	for (int i = 0; i <= rounds; i++) bounds[i] = rand.nextInt();
+
+    	IntScanKernels scalar = IntScanKernels.scalar();
+    	IntScanKernels best = IntScanKernels.best();
+
+    	for (int r = 0; r < rounds; r++){
+    		if (scalar.countLess(keys, 0, slots, bounds[r]) != best.countLess(keys, 0, slots, bounds[r])
+    		 || scalar.countBetween(keys, 0, slots, bounds[r], bounds[r] + (1 << 30)) != best.countBetween(keys, 0, slots, bounds[r], bounds[r] + (1 << 30)))
+    			throw new IllegalStateException("kernels disagree at " + slots + " slots");
+    	}
+
+    	// warm up, then measure
+    	timeRank(scalar, keys, bounds, rounds); timeRank(best, keys, bounds, rounds);
+    	timeRange(scalar, keys, bounds, rounds); timeRange(best, keys, bounds, rounds);
+
+    	double rankScalar  = timeRank(scalar, keys, bounds, rounds);
+    	double rankBest    = timeRank(best, keys, bounds, rounds);
+    	double rangeScalar = timeRange(scalar, keys, bounds, rounds);
+    	double rangeBest   = timeRange(best, keys, bounds, rounds);
+
+    	return String.format("| %10d\t| %8.3f\t| %8.3f\t| %8.3f\t| %8.3f\t|",
+    		slots, rankScalar / slots, rankBest / slots, rangeScalar / slots, rangeBest / slots);
+    }
+
+    /***********************************************************************
+     *  Test client.
+     ***********************************************************************/
+    public static void main(String[] args) {
+    	int maxSlots = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+    	int rounds   = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    	System.out.println("----------------- S C A N   K E R N E L S ------------------");
+    	System.out.println("Best kernels: " + IntScanKernels.best().name());
+    	System.out.println("| Slots\t\t| Rank scalar\t| Rank best\t| Range scalar\t| Range best\t| (ns/slot)");
+
+    	// one untimed pass to warm up the JIT
+    	testSize(100000, 500);
+
+    	for (long slots = 100000; slots <= maxSlots; slots *= 10)
+    		System.out.println(testSize((int) slots, rounds));
+
+    	System.out.format("%d rounds per size (checksum %d)\n", rounds, sink);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Compares SwissHashST with LinearProbingHashST: insertion, successful
+ *  search, unsuccessful search (keys that are probably not there, as
+ *  QueryGenerator produces) and deletion, plus the slots each table ends
+ *  up with. The linear probing table gets the given capacity (the prime
+ *  from the TestEngine notes); the Swiss table is sized for TESTSIZE keys
+ *  and runs at up to 7/8 load. Sizing rounds up to a power of two, so
+ *  that table may be only half full; a third run keeps inserting random
+ *  keys until the Swiss table is FULL (87%) and times it there. The last
+ *  column gives the slots and the load at which the times were taken.
+ *
+ *************************************************************************/
+public class TestSwiss{
+
+    private static final double FULL = 0.87;     // load of the full Swiss table run
+    private static int TESTSIZE = 0;
+    private static int CAPACITY = 0;
+    private static int[] dataset;
+    private static int[] present;
+    private static int[] missing;
+    static double startTest, endTest;
+
+    public static String testLinearProbing(){
+
+    	LinearProbingHashST<Integer, Integer> lphs = new LinearProbingHashST<Integer, Integer>(CAPACITY);
+
+    	String row = "| Linear Probing\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) lphs.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.search(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.search(missing[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	String slots = String.format(" %d (%.1f%%)\t|", lphs.capacity(), 100.0 * lphs.size() / lphs.capacity());
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) lphs.delete(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	return row + slots;
+    }
+
+    public static String testSwiss(){
+
+    	SwissHashST<Integer, Integer> swiss = new SwissHashST<Integer, Integer>(TESTSIZE);
+
+    	String row = "| Swiss Table\t\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < TESTSIZE; i++) swiss.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/TESTSIZE);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.search(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.search(missing[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	String slots = String.format(" %d (%.1f%%)\t|", swiss.capacity(), 100.0 * swiss.loadFactor());
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.delete(present[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	return row + slots;
+    }
+
+    // the Swiss table filled past TESTSIZE with more random keys until
+    // FULL of its slots hold keys, just short of the 7/8 that grows it,
+    // so hits and misses are timed at the load the table is built for
+    public static String testSwissFull(){
+
+    	SwissHashST<Integer, Integer> swiss = new SwissHashST<Integer, Integer>(TESTSIZE);
+
+    	String row = "| Swiss Table " + FULL + "\t|";
+
+    	Random rand = new Random(TESTSIZE);
+    	// room for repeated random keys, which do not raise the load
+    	int[] keys = Arrays.copyOf(dataset, Math.max(TESTSIZE, swiss.capacity()));
+    	for (int i = TESTSIZE; i < keys.length; i++) keys[i] = rand.nextInt();
+
+    	startTest = System.nanoTime();
+    	int n = 0;
+    	while (n < TESTSIZE || (swiss.loadFactor() < FULL && n < keys.length)) swiss.insert(keys[n], keys[n++]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/n);
+
+    	int[] hits = new int[2000];
+    	for (int i = 0; i < 2000; i++) hits[i] = keys[rand.nextInt(n)];
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.search(hits[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.search(missing[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	String slots = String.format(" %d (%.1f%%)\t|", swiss.capacity(), 100.0 * swiss.loadFactor());
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < 2000; i++) swiss.delete(hits[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/2000.0);
+
+    	return row + slots;
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	present = new int[2000];
+    	missing = new int[2000];
+
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+
+    	for (int i = 0; i < 2000; i++){
+    		present[i] = dataset[rand.nextInt(TESTSIZE)];
+    		missing[i] = rand.nextInt();
+    	}
+
+    	// one untimed round of each to warm up the JIT
+    	testLinearProbing();
+    	testSwiss();
+    	testSwissFull();
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("---------------- Swiss Table vs Linear Probing -------------");
+    	System.out.println("| Time(ns)\t\t| Insertion\t| Search hit\t| Search miss\t| Deletion\t| Slots (load)\t|");
+    	System.out.println(testLinearProbing());
+    	System.out.println(testSwiss());
+    	System.out.println(testSwissFull());
+    	System.out.format("TESTSIZE is %d, linear probing capacity %d \n", TESTSIZE, CAPACITY);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestSwiss(int size, int capacity) {
+        TESTSIZE = size;
+        CAPACITY = capacity;
+        testall();
+    }
+}
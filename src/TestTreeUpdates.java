@@ -0,0 +1,79 @@
+import java.util.*;
+
+/*************************************************************************
+ *  Times the updates of RedBlackBST at a given size: inserting TESTSIZE
+ *  random Integer keys, deleting half of them in random order, then
+ *  deleteMin on half of what is left and deleteMax on the rest, in ns
+ *  per operation. A smaller untimed round warms up the JIT first.
+ *
+ *  Run it at 10^6 and 10^7 keys. To compare with the recursive insert
+ *  and deletes, check out the commit before they were made iterative
+ *  and run the same mode there.
+ *
+ *************************************************************************/
+public class TestTreeUpdates{
+
+    private static final int WARMUP = 100000;    // keys in the untimed round
+    private static int TESTSIZE = 0;
+    private static int[] dataset;
+    static double startTest, endTest;
+
+    public static String testUpdates(int size){
+
+    	RedBlackBST<Integer, Integer> rbt = new RedBlackBST<Integer, Integer>();
+
+    	String row = "| RedBlackBST\t|";
+
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < size; i++) rbt.insert(dataset[i], dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/size);
+
+    	int height = rbt.height();
+
+    	// the keys are in random order, so the first half is a random half
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < size / 2; i++) rbt.delete(dataset[i]);
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/Math.max(1, size / 2));
+
+    	int mins = rbt.size() / 2;
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < mins; i++) rbt.deleteMin();
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/Math.max(1, mins));
+
+    	int maxs = rbt.size();
+    	startTest = System.nanoTime();
+    	for (int i = 0; i < maxs; i++) rbt.deleteMax();
+    	endTest = System.nanoTime();
+    	row = row + String.format(" %.2f \t|", (endTest-startTest)/Math.max(1, maxs));
+
+    	return row + String.format(" %d \t|", height);
+    }
+
+    public static void testall(){
+
+    	Random rand = new Random(System.currentTimeMillis());
+
+    	dataset = new int[TESTSIZE];
+    	for (int i = 0; i < TESTSIZE; i++) dataset[i] = rand.nextInt();
+
+    	testUpdates(Math.min(TESTSIZE, WARMUP));
+
+    	System.out.println("----------------------- R E P O R T ------------------------");
+    	System.out.println("----------------- Red Black Tree updates -------------------");
+    	System.out.println("| Time(ns)\t| Insertion\t| Deletion\t| DeleteMin\t| DeleteMax\t| Height\t|");
+    	System.out.println(testUpdates(TESTSIZE));
+    	System.out.format("TESTSIZE is %d \n", TESTSIZE);
+    	System.out.println("----------------------- E    N    D ------------------------");
+    }
+
+    /***********************************************************************
+     *  Unit test client.
+     ***********************************************************************/
+    public TestTreeUpdates(int size) {
+        TESTSIZE = size;
+        testall();
+    }
+}